@@ -0,0 +1,70 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The three hot paths of the original Main, measured as they are today.
+//
+// Throughput gives batches per second; SampleTime gives the per-batch latency distribution
+// (JMH prints p0.99 among the percentiles). Add -prof gc for the allocation rate per operation.
+//
+//   java -jar target/benchmarks.jar LedgerHotPathBenchmark -prof gc
+//   java -jar target/benchmarks.jar LedgerHotPathBenchmark -p invalidRate=0.05 -p skew=3.0
+//
+// System.out is swapped for a discarding stream while benchmarking: the printing code still
+// runs (string building, formatting, the PrintStream lock), only the terminal is left out.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LedgerHotPathBenchmark {
+
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void silenceConsole() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreConsole() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public Map<Long, BigDecimal> calculateBalances(LedgerWorkload workload) {
+        return Main.calculateBalances(workload.transactions);
+    }
+
+    @Benchmark
+    public void isValidTransaction(LedgerWorkload workload, Blackhole blackhole) {
+        for (Transaction tx : workload.transactions) {
+            blackhole.consume(Main.isValidTransaction(tx));
+        }
+    }
+
+    @Benchmark
+    public void displayBalances(LedgerWorkload workload) {
+        Main.displayBalances(workload.balances);
+    }
+}
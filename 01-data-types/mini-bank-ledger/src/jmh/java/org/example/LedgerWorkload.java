@@ -0,0 +1,41 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+// Synthetic input shared by the ledger benchmarks. Every knob is a JMH @Param, so it can be
+// overridden from the command line, e.g. -p accounts=1000000 -p skew=3.0 -p invalidRate=0.05
+@State(Scope.Benchmark)
+public class LedgerWorkload {
+
+    // transactions per batch (one benchmark operation = one batch)
+    @Param({"100000"})
+    public int batchSize;
+
+    // account cardinality
+    @Param({"10000"})
+    public int accounts;
+
+    // 1.0 = uniform; 3.0 = about 21% of the transactions hit the first 1% of accounts
+    @Param({"1.0"})
+    public double skew;
+
+    // fraction of rows isValidTransaction rejects
+    @Param({"0.0"})
+    public double invalidRate;
+
+    List<Transaction> transactions;
+    Map<Long, BigDecimal> balances;
+
+    @Setup
+    public void generate() {
+        transactions = TransactionGenerator.generate(batchSize, accounts, skew, invalidRate, 42L);
+        balances = CentsLedger.calculateBalances(transactions);
+    }
+}
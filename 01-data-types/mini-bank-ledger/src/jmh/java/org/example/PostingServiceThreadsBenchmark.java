@@ -0,0 +1,92 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// LedgerPostingService under concurrent producers. JMH takes the thread count from -t, so
+// sweep it from the shell:
+//
+//   for t in 1 2 4 8 16 32 64; do java -jar target/benchmarks.jar PostingServiceThreadsBenchmark -t $t; done
+//
+// "globalLock" is the baseline: one CentsLedger behind a single monitor.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostingServiceThreadsBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Ledgers {
+        @Param({"100000"})
+        public int accounts;
+
+        // 3.0 = about 21% of the posts hit the first 1% of accounts
+        @Param({"3.0"})
+        public double skew;
+
+        LedgerPostingService striped;
+        CentsLedger global;
+
+        @Setup
+        public void create() {
+            striped = new LedgerPostingService();
+            global = new CentsLedger();
+        }
+    }
+
+    // Pre-generated posts per thread, so the random source is not what is being measured.
+    @State(Scope.Thread)
+    public static class Producer {
+        private static final int POSTS = 1 << 16;
+
+        final long[] accountIds = new long[POSTS];
+        final long[] signedCents = new long[POSTS];
+        int next;
+
+        @Setup
+        public void generate(Ledgers ledgers) {
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+            for (int i = 0; i < POSTS; i++) {
+                int account = (int) (ledgers.accounts * Math.pow(random.nextDouble(), ledgers.skew));
+                accountIds[i] = TransactionGenerator.FIRST_ACCOUNT_ID + account;
+                long cents = random.nextLong(1, 100_000_00L);
+                signedCents[i] = random.nextInt(3) == 0 ? -cents : cents;
+            }
+        }
+
+        int nextIndex() {
+            int i = next;
+            next = (i + 1) & (POSTS - 1);
+            return i;
+        }
+    }
+
+    @Benchmark
+    public boolean striped(Ledgers ledgers, Producer producer) {
+        int i = producer.nextIndex();
+        long cents = producer.signedCents[i];
+        return ledgers.striped.postCents(cents < 0 ? 'W' : 'D', producer.accountIds[i], Math.abs(cents));
+    }
+
+    @Benchmark
+    public boolean globalLock(Ledgers ledgers, Producer producer) {
+        int i = producer.nextIndex();
+        long cents = producer.signedCents[i];
+        synchronized (ledgers.global) {
+            return ledgers.global.applyCents(cents < 0 ? 'W' : 'D', producer.accountIds[i], Math.abs(cents));
+        }
+    }
+}
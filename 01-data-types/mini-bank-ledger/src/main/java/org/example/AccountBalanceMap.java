@@ -0,0 +1,224 @@
+package org.example;
+
+import java.util.Arrays;
+
+// Map from long accountId to long balance (in cents), without boxing.
+//
+// Why not HashMap<Long, BigDecimal>? For every account it keeps
+//   a HashMap.Node (~32 bytes) + a Long key (~16 bytes) + a BigDecimal value (~40 bytes)
+// plus a slot in the table. This map keeps two parallel primitive arrays instead:
+//   keys[i] / values[i] -> 16 bytes per slot, no objects per account at all.
+//
+// Open addressing with linear probing: a key lives in the first free slot at or after
+// its hash position. 0 marks an empty slot, so accountId 0 is stored in separate fields.
+//
+// Not thread-safe - one writer at a time (use snapshot() to hand a copy to readers).
+public class AccountBalanceMap {
+
+    @FunctionalInterface
+    public interface Entry {
+        void accept(long accountId, long balance);
+    }
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public AccountBalanceMap() {
+        this(16);
+    }
+
+    public AccountBalanceMap(int expectedAccounts) {
+        int capacity = tableSizeFor((int) Math.ceil(Math.max(expectedAccounts, 2) / LOAD_FACTOR));
+        allocate(capacity);
+    }
+
+    private AccountBalanceMap(AccountBalanceMap source) {
+        this.keys = source.keys.clone();
+        this.values = source.values.clone();
+        this.mask = source.mask;
+        this.size = source.size;
+        this.resizeAt = source.resizeAt;
+        this.hasZeroKey = source.hasZeroKey;
+        this.zeroValue = source.zeroValue;
+    }
+
+    public int size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean containsKey(long accountId) {
+        if (accountId == EMPTY) {
+            return hasZeroKey;
+        }
+        return keys[slotOf(accountId)] == accountId;
+    }
+
+    public long get(long accountId, long defaultValue) {
+        if (accountId == EMPTY) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int slot = slotOf(accountId);
+        return keys[slot] == accountId ? values[slot] : defaultValue;
+    }
+
+    public void put(long accountId, long balance) {
+        if (accountId == EMPTY) {
+            hasZeroKey = true;
+            zeroValue = balance;
+            return;
+        }
+        int slot = slotOf(accountId);
+        if (keys[slot] == accountId) {
+            values[slot] = balance;
+            return;
+        }
+        insertAt(slot, accountId, balance);
+    }
+
+    // balance += delta, starting from 0 for a new account. Returns the new balance.
+    // Throws ArithmeticException (and changes nothing) when the result does not fit a long.
+    public long addExact(long accountId, long delta) {
+        if (accountId == EMPTY) {
+            long updated = Math.addExact(hasZeroKey ? zeroValue : 0L, delta);
+            hasZeroKey = true;
+            zeroValue = updated;
+            return updated;
+        }
+        int slot = slotOf(accountId);
+        if (keys[slot] == accountId) {
+            values[slot] = Math.addExact(values[slot], delta);
+            return values[slot];
+        }
+        insertAt(slot, accountId, delta);
+        return delta;
+    }
+
+    // Returns true if the account was present.
+    public boolean remove(long accountId) {
+        if (accountId == EMPTY) {
+            boolean had = hasZeroKey;
+            hasZeroKey = false;
+            zeroValue = 0L;
+            return had;
+        }
+        int slot = slotOf(accountId);
+        if (keys[slot] != accountId) {
+            return false;
+        }
+        // Backward-shift deletion: pull later entries of the same probe run into the gap so
+        // lookups never stop early at a hole (no tombstones needed).
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            // move the entry if its home slot is not inside (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0L;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, 0L);
+        size = 0;
+        hasZeroKey = false;
+        zeroValue = 0L;
+    }
+
+    // Visits every account in table order (not insertion order).
+    public void forEach(Entry action) {
+        if (hasZeroKey) {
+            action.accept(EMPTY, zeroValue);
+        }
+        long[] k = keys;
+        long[] v = values;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != EMPTY) {
+                action.accept(k[i], v[i]);
+            }
+        }
+    }
+
+    // Independent copy: later writes to this map are not visible in the snapshot.
+    // Two array clones - much cheaper than copying a HashMap node by node.
+    public AccountBalanceMap snapshot() {
+        return new AccountBalanceMap(this);
+    }
+
+    // Bytes held by the two tables, for memory comparisons.
+    public long tableBytes() {
+        return (long) keys.length * Long.BYTES * 2;
+    }
+
+    // Slot holding accountId, or the empty slot where it would be inserted.
+    private int slotOf(long accountId) {
+        int slot = hash(accountId) & mask;
+        long[] k = keys;
+        while (k[slot] != EMPTY && k[slot] != accountId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insertAt(int slot, long accountId, long balance) {
+        keys[slot] = accountId;
+        values[slot] = balance;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(long key) {
+        // account IDs are sequential - mix them so neighbours do not form one long probe run
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int minCapacity) {
+        if (minCapacity > 1 << 30) {
+            throw new IllegalArgumentException("Too many accounts for one table: " + minCapacity);
+        }
+        return Math.max(16, Integer.highestOneBit(minCapacity - 1) << 1);
+    }
+}
@@ -0,0 +1,75 @@
+package org.example;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Compares point-in-time balance queries answered by BalanceHistoryIndex with a full rescan
+// of the transaction list (what you have to do without an index).
+//
+// Usage: BalanceHistoryBenchmark [transactions] [accounts] [queries]
+//        defaults: 2000000 transactions, 10000 accounts, 200000 queries
+//
+// The rescan is so slow that it runs only a small sample of the queries; every rescan answer
+// is also checked against the index.
+public class BalanceHistoryBenchmark {
+
+    private static final int RESCAN_QUERIES = 20;
+
+    public static void main(String[] args) {
+        int transactionCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int accountCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int queryCount = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+
+        List<Transaction> transactions = TransactionGenerator.generate(transactionCount, accountCount, 7L);
+        long firstTimestamp = transactions.get(0).timestampMillis();
+        long lastTimestamp = transactions.get(transactions.size() - 1).timestampMillis();
+
+        long start = System.nanoTime();
+        BalanceHistoryIndex index = new BalanceHistoryIndex();
+        for (Transaction tx : transactions) {
+            index.add(tx);
+        }
+        long buildNanos = System.nanoTime() - start;
+        System.out.printf("Indexed %,d transactions over %,d accounts in %,d ms%n",
+                index.transactionCount(), index.accountCount(), buildNanos / 1_000_000);
+
+        SplittableRandom random = new SplittableRandom(11L);
+        long checksum = 0;
+        start = System.nanoTime();
+        for (int q = 0; q < queryCount; q++) {
+            long accountId = TransactionGenerator.FIRST_ACCOUNT_ID + random.nextInt(accountCount);
+            long at = random.nextLong(firstTimestamp, lastTimestamp + 1);
+            checksum += index.balanceAsOfCents(accountId, at);
+        }
+        long indexNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int q = 0; q < RESCAN_QUERIES; q++) {
+            long accountId = TransactionGenerator.FIRST_ACCOUNT_ID + random.nextInt(accountCount);
+            long at = random.nextLong(firstTimestamp, lastTimestamp + 1);
+            long rescanned = rescanBalanceCents(transactions, accountId, at);
+            if (rescanned != index.balanceAsOfCents(accountId, at)) {
+                throw new IllegalStateException("Index and rescan disagree for account " + accountId + " at " + at);
+            }
+        }
+        long rescanNanos = System.nanoTime() - start;
+
+        double indexPerQuery = (double) indexNanos / queryCount;
+        double rescanPerQuery = (double) rescanNanos / RESCAN_QUERIES;
+        System.out.printf("Index : %,12.0f ns/query (%,d queries, checksum %d)%n", indexPerQuery, queryCount, checksum);
+        System.out.printf("Rescan: %,12.0f ns/query (%,d queries)%n", rescanPerQuery, RESCAN_QUERIES);
+        System.out.printf("Index is ~%,.0fx faster; answers match%n", rescanPerQuery / indexPerQuery);
+    }
+
+    // What a query costs without the index: walk every transaction.
+    static long rescanBalanceCents(List<Transaction> transactions, long accountId, long timestampMillis) {
+        long balance = 0;
+        for (Transaction tx : transactions) {
+            if (tx.accountId() == accountId && tx.timestampMillis() <= timestampMillis && Main.isValidTransaction(tx)) {
+                long cents = CentsLedger.toCents(tx.amount());
+                balance += tx.type() == 'D' ? cents : -cents;
+            }
+        }
+        return balance;
+    }
+}
@@ -0,0 +1,157 @@
+package org.example;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Answers "what was account X's balance at time T?" without rescanning every transaction.
+//
+// For each account it keeps two parallel arrays sorted by timestamp:
+//   timestamps[i]  - time of the i-th transaction of that account
+//   balances[i]    - balance in cents right after it (a running / prefix sum)
+//
+// balanceAsOf(account, T)      -> binary search for the last timestamp <= T, read balances[i]
+// delta(account, from, to)     -> balanceAsOf(to) - balanceAsOf(from)
+// Both are O(log n) in the number of transactions of that account.
+//
+// Kept up to date incrementally with add(). Transactions normally arrive in time order and are
+// appended in O(1); a late one is inserted at its place and the running sums after it are
+// shifted, which is O(n) for that account but rare.
+//
+// Amounts are in cents (see CentsLedger); a running sum that overflows a long throws
+// ArithmeticException. Not thread-safe.
+public class BalanceHistoryIndex {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    // accountId -> position in histories; the primitive map avoids boxing on every lookup
+    private final AccountBalanceMap slots = new AccountBalanceMap();
+    private final List<AccountHistory> histories = new ArrayList<>();
+    private long transactionCount;
+
+    private static final class AccountHistory {
+        long[] timestamps = new long[INITIAL_CAPACITY];
+        long[] balances = new long[INITIAL_CAPACITY];
+        int size;
+
+        void add(long timestampMillis, long delta) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                balances = Arrays.copyOf(balances, size * 2);
+            }
+            if (size == 0 || timestamps[size - 1] <= timestampMillis) {
+                // in-order arrival: O(1) append
+                timestamps[size] = timestampMillis;
+                balances[size] = size == 0 ? delta : Math.addExact(balances[size - 1], delta);
+                size++;
+                return;
+            }
+            // late arrival: insert after any transaction with the same timestamp, then fix the sums
+            int at = upperBound(timestampMillis);
+            long before = at == 0 ? 0L : balances[at - 1];
+            for (int i = at; i < size; i++) {
+                // check the whole tail first, so an overflow leaves the history unchanged
+                Math.addExact(balances[i], delta);
+            }
+            System.arraycopy(timestamps, at, timestamps, at + 1, size - at);
+            System.arraycopy(balances, at, balances, at + 1, size - at);
+            timestamps[at] = timestampMillis;
+            balances[at] = Math.addExact(before, delta);
+            size++;
+            for (int i = at + 1; i < size; i++) {
+                balances[i] += delta;
+            }
+        }
+
+        // number of transactions with timestamp <= timestampMillis
+        int upperBound(long timestampMillis) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[mid] <= timestampMillis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        long balanceAsOf(long timestampMillis) {
+            int count = upperBound(timestampMillis);
+            return count == 0 ? 0L : balances[count - 1];
+        }
+    }
+
+    // Builds an index over a whole binary log.
+    public static BalanceHistoryIndex fromLog(BinaryTransactionLog.Reader reader) {
+        BalanceHistoryIndex index = new BalanceHistoryIndex();
+        reader.forEach(0, (i, type, accountId, amountCents, timestampMillis) ->
+                index.addCents(type, accountId, amountCents, timestampMillis));
+        return index;
+    }
+
+    // Returns false (and indexes nothing) for a transaction isValidTransaction rejects.
+    public boolean add(Transaction tx) {
+        if (!Main.isValidTransaction(tx)) {
+            return false;
+        }
+        return addCents(tx.type(), tx.accountId(), CentsLedger.toCents(tx.amount()), tx.timestampMillis());
+    }
+
+    public boolean addCents(char type, long accountId, long amountCents, long timestampMillis) {
+        if ((type != 'D' && type != 'W') || amountCents < 0) {
+            return false;
+        }
+        history(accountId, true).add(timestampMillis, type == 'D' ? amountCents : -amountCents);
+        transactionCount++;
+        return true;
+    }
+
+    // Balance in cents including every transaction at or before timestampMillis (0 if none).
+    public long balanceAsOfCents(long accountId, long timestampMillis) {
+        AccountHistory history = history(accountId, false);
+        return history == null ? 0L : history.balanceAsOf(timestampMillis);
+    }
+
+    public BigDecimal balanceAsOf(long accountId, long timestampMillis) {
+        return CentsLedger.fromCents(balanceAsOfCents(accountId, timestampMillis));
+    }
+
+    // Net change in cents from transactions with fromMillis < timestamp <= toMillis.
+    public long deltaCents(long accountId, long fromMillis, long toMillis) {
+        if (fromMillis > toMillis) {
+            throw new IllegalArgumentException("fromMillis must not be after toMillis");
+        }
+        AccountHistory history = history(accountId, false);
+        return history == null ? 0L : history.balanceAsOf(toMillis) - history.balanceAsOf(fromMillis);
+    }
+
+    public BigDecimal delta(long accountId, long fromMillis, long toMillis) {
+        return CentsLedger.fromCents(deltaCents(accountId, fromMillis, toMillis));
+    }
+
+    public int accountCount() {
+        return histories.size();
+    }
+
+    public long transactionCount() {
+        return transactionCount;
+    }
+
+    private AccountHistory history(long accountId, boolean create) {
+        long slot = slots.get(accountId, -1L);
+        if (slot >= 0) {
+            return histories.get((int) slot);
+        }
+        if (!create) {
+            return null;
+        }
+        AccountHistory history = new AccountHistory();
+        slots.put(accountId, histories.size());
+        histories.add(history);
+        return history;
+    }
+}
@@ -0,0 +1,90 @@
+package org.example;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Measures how much heap account balances cost in
+//   HashMap<Long, BigDecimal>  (what Main.calculateBalances returns)
+//   AccountBalanceMap          (primitive long -> long cents)
+//
+// Usage: BalanceMapMemoryComparison [accountCount ...]   (default: 1000000 10000000 50000000)
+// Give the JVM enough heap for the boxed map, e.g. -Xmx12g for 50M accounts; a size that
+// does not fit is reported as "out of memory" instead of stopping the run.
+//
+// Heap numbers come from Runtime after a System.gc(), so treat them as estimates.
+public class BalanceMapMemoryComparison {
+
+    // keeps the map under measurement reachable while the heap is sampled
+    private static Object retained;
+
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0
+                ? new int[]{1_000_000, 10_000_000, 50_000_000}
+                : parseSizes(args);
+
+        System.out.printf("Max heap: %,d MB%n", Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        System.out.printf("%12s | %22s | %22s | %s%n", "accounts", "HashMap<Long,BigDecimal>", "AccountBalanceMap", "ratio");
+
+        for (int accounts : sizes) {
+            long primitiveBytes = measure(() -> buildPrimitive(accounts));
+            long boxedBytes = measure(() -> buildBoxed(accounts));
+            System.out.printf("%,12d | %22s | %22s | %s%n", accounts,
+                    describe(boxedBytes, accounts), describe(primitiveBytes, accounts),
+                    boxedBytes > 0 && primitiveBytes > 0 ? String.format("%.1fx", (double) boxedBytes / primitiveBytes) : "-");
+        }
+    }
+
+    private static Object buildPrimitive(int accounts) {
+        AccountBalanceMap balances = new AccountBalanceMap();
+        for (int i = 0; i < accounts; i++) {
+            balances.put(TransactionGenerator.FIRST_ACCOUNT_ID + i, 1_000_00L + i);
+        }
+        return balances;
+    }
+
+    private static Object buildBoxed(int accounts) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (int i = 0; i < accounts; i++) {
+            balances.put(TransactionGenerator.FIRST_ACCOUNT_ID + i, BigDecimal.valueOf(1_000_00L + i, 2));
+        }
+        return balances;
+    }
+
+    // Heap retained by whatever the builder returns, or -1 when it does not fit.
+    private static long measure(Supplier<Object> builder) {
+        long before = usedHeapAfterGc();
+        try {
+            retained = builder.get();
+        } catch (OutOfMemoryError e) {
+            return -1;
+        }
+        long after = usedHeapAfterGc();
+        retained = null;
+        return Math.max(0, after - before);
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String describe(long bytes, int accounts) {
+        if (bytes < 0) {
+            return "out of memory";
+        }
+        return String.format("%,d MB (%d B/acct)", bytes / (1024 * 1024), bytes / accounts);
+    }
+
+    private static int[] parseSizes(String[] args) {
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        return sizes;
+    }
+}
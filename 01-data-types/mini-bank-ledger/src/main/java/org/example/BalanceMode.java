@@ -0,0 +1,23 @@
+package org.example;
+
+// Which balance engine Main should use.
+//
+// SEQUENTIAL - the original single-threaded HashMap loop (the reference result)
+// PARALLEL   - ParallelBalanceEngine, shards accounts across a ForkJoinPool
+// CENTS      - CentsLedger, balances kept as long cents (no BigDecimal per transaction)
+// COMPARE    - runs all of them, checks the results agree and prints the timings
+public enum BalanceMode {
+    SEQUENTIAL,
+    PARALLEL,
+    CENTS,
+    COMPARE;
+
+    static BalanceMode fromArg(String arg) {
+        try {
+            return BalanceMode.valueOf(arg.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown balance mode '" + arg
+                    + "', expected one of SEQUENTIAL, PARALLEL, CENTS, COMPARE");
+        }
+    }
+}
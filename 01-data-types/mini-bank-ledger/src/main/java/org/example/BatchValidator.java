@@ -0,0 +1,108 @@
+package org.example;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+// Validates a whole chunk of transactions before any balance is touched.
+//
+// Instead of "check one, apply one, println if bad", it works in two passes:
+//   1. gather  - copy type, amount scale and amount sign of every transaction into int arrays
+//   2. check   - one tight loop over those arrays computes a reason code per transaction
+// The check loop reads only primitive arrays and makes no calls, which is the shape the JIT
+// unrolls well and can vectorize (the per-reason counting at the end of it is the only
+// scatter). The results go into a byte[] of reason codes (0 = valid, see
+// RejectReason.code()) and per-reason counters.
+//
+// The rules are exactly Main.isValidTransaction's. One instance per thread (the scratch arrays
+// are reused between chunks); the counters are LongAdders and can be read from any thread.
+public class BatchValidator {
+
+    private static final int TYPE_BAD = RejectReason.INVALID_TYPE.code();
+    private static final int SCALE_BAD = RejectReason.TOO_MANY_DECIMALS.code();
+    private static final int SIGN_BAD = RejectReason.NEGATIVE_AMOUNT.code();
+
+    private final LongAdder[] rejectedByReason = new LongAdder[RejectReason.values().length];
+    private final LongAdder validCount = new LongAdder();
+
+    private int[] types = new int[0];
+    private int[] scales = new int[0];
+    private int[] signs = new int[0];
+
+    public BatchValidator() {
+        for (int i = 0; i < rejectedByReason.length; i++) {
+            rejectedByReason[i] = new LongAdder();
+        }
+    }
+
+    // Fills reasons[0 .. batch.size()) and returns how many transactions are valid.
+    public int validate(List<Transaction> batch, byte[] reasons) {
+        int n = batch.size();
+        if (reasons.length < n) {
+            throw new IllegalArgumentException("reasons array is smaller than the batch");
+        }
+        ensureCapacity(n);
+
+        // pass 1: gather the columns
+        for (int i = 0; i < n; i++) {
+            Transaction tx = batch.get(i);
+            types[i] = tx.type();
+            scales[i] = tx.amount().scale();
+            signs[i] = tx.amount().signum();
+        }
+
+        // pass 2: branch-free check; the first failing rule wins, same order as isValidTransaction
+        int[] counts = new int[rejectedByReason.length + 1];
+        for (int i = 0; i < n; i++) {
+            int type = types[i];
+            int badType = (type != 'D' & type != 'W') ? TYPE_BAD : 0;
+            int badScale = scales[i] > 2 ? SCALE_BAD : 0;
+            int badSign = signs[i] < 0 ? SIGN_BAD : 0;
+            int code = badType != 0 ? badType : (badScale != 0 ? badScale : badSign);
+            reasons[i] = (byte) code;
+            counts[code]++;
+        }
+
+        for (int r = 0; r < rejectedByReason.length; r++) {
+            if (counts[r + 1] != 0) {
+                rejectedByReason[r].add(counts[r + 1]);
+            }
+        }
+        validCount.add(counts[0]);
+        return counts[0];
+    }
+
+    public long validCount() {
+        return validCount.sum();
+    }
+
+    public long rejectedCount(RejectReason reason) {
+        return rejectedByReason[reason.ordinal()].sum();
+    }
+
+    public long rejectedCount() {
+        long total = 0;
+        for (LongAdder adder : rejectedByReason) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    public String summary() {
+        StringBuilder summary = new StringBuilder();
+        for (RejectReason reason : RejectReason.values()) {
+            if (summary.length() > 0) {
+                summary.append(" | ");
+            }
+            summary.append(reason).append(": ").append(String.format("%,d", rejectedCount(reason)));
+        }
+        return summary.toString();
+    }
+
+    private void ensureCapacity(int n) {
+        if (types.length < n) {
+            types = new int[n];
+            scales = new int[n];
+            signs = new int[n];
+        }
+    }
+}
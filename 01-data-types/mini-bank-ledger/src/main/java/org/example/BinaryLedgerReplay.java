@@ -0,0 +1,64 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Converts a text transaction file to a BinaryTransactionLog once, then replays the binary log.
+//
+// Usage:
+//   BinaryLedgerReplay --convert <text file> <log.txlog>   parse the text once, write the binary log
+//   BinaryLedgerReplay <log.txlog> [repeats]               replay the log (repeats > 1 shows warm runs)
+public class BinaryLedgerReplay {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("--convert")) {
+            convert(Path.of(args[1]), Path.of(args[2]));
+            return;
+        }
+        if (args.length < 1) {
+            System.out.println("Usage: BinaryLedgerReplay --convert <text file> <log.txlog> | <log.txlog> [repeats]");
+            return;
+        }
+        int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        try (BinaryTransactionLog.Reader reader = new BinaryTransactionLog.Reader(Path.of(args[0]))) {
+            CentsLedger ledger = null;
+            for (int run = 1; run <= repeats; run++) {
+                ledger = new CentsLedger();
+                long start = System.nanoTime();
+                long applied = reader.replayInto(ledger, 0);
+                long elapsedNanos = System.nanoTime() - start;
+                System.out.printf("Run %d: %,d records applied | %,d accounts | %,d ms | %,.0f records/s%n",
+                        run, applied, ledger.accountCount(), elapsedNanos / 1_000_000,
+                        elapsedNanos == 0 ? 0 : applied * 1_000_000_000.0 / elapsedNanos);
+            }
+            if (ledger != null && ledger.accountCount() <= 20) {
+                Main.displayBalances(ledger.toBigDecimalMap());
+            }
+        }
+    }
+
+    static void convert(Path textFile, Path logFile) throws IOException {
+        long start = System.nanoTime();
+        TransactionFile.ReadStats stats;
+        long written;
+        long skipped;
+        try (BinaryTransactionLog.Writer writer = new BinaryTransactionLog.Writer(logFile)) {
+            stats = TransactionFile.readInChunks(textFile, 10_000, chunk -> {
+                try {
+                    for (Transaction tx : chunk) {
+                        writer.append(tx);
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not write " + logFile, e);
+                }
+            });
+            written = writer.written();
+            skipped = writer.skipped();
+        }
+        System.out.printf("Converted %,d rows: %,d records written, %,d invalid, %,d malformed | %,d MB | %,d ms%n",
+                stats.lines(), written, skipped, stats.malformed(),
+                Files.size(logFile) / (1024 * 1024), (System.nanoTime() - start) / 1_000_000);
+    }
+}
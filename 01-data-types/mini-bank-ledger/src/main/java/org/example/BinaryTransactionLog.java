@@ -0,0 +1,346 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compact binary transaction log: parse the text once, replay the binary many times.
+//
+// Two files per log:
+//   <name>.txlog  - 16-byte header + fixed-width 32-byte records
+//   <name>.notes  - string table: [int length][UTF-8 bytes] per distinct note
+//
+// Record layout (little-endian, 32 bytes):
+//   0  long  accountId
+//   8  long  amount in cents   (the BigDecimal is converted once, when writing)
+//   16 long  timestampMillis
+//   24 int   note index into the string table
+//   28 char  type ('D' / 'W')
+//   30 short padding (keeps records 8-byte aligned)
+//
+// Fixed width means record i is at HEADER_BYTES + i * RECORD_BYTES - the reader can jump to
+// any record and read fields straight out of the mapped file, without parsing or copying.
+// Notes are the only variable-length field, so they live in their own file and are decoded
+// only when someone asks for them. Repeated notes ("Salary") are stored once.
+public class BinaryTransactionLog {
+
+    static final int MAGIC = 0x54584C31; // "TXL1"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 32;
+
+    private static final int ACCOUNT_ID = 0;
+    private static final int AMOUNT_CENTS = 8;
+    private static final int TIMESTAMP = 16;
+    private static final int NOTE_INDEX = 24;
+    private static final int TYPE = 28;
+
+    private BinaryTransactionLog() {
+    }
+
+    static Path notesFile(Path logFile) {
+        String name = logFile.getFileName().toString();
+        String base = name.endsWith(".txlog") ? name.substring(0, name.length() - ".txlog".length()) : name;
+        return logFile.resolveSibling(base + ".notes");
+    }
+
+    // Called for every record by Reader.forEach - primitives only, so replay allocates nothing.
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void visit(long index, char type, long accountId, long amountCents, long timestampMillis);
+    }
+
+    // Writes a log. Only valid transactions are written.
+    // new Writer(file)       - starts a new log, replacing any existing one
+    // Writer.append(file)    - adds a new batch to the end of an existing log
+    public static class Writer implements AutoCloseable {
+
+        private static final int BUFFER_RECORDS = 4096;
+
+        private final FileChannel channel;
+        private final DataOutputStream notesOut;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        private final Map<String, Integer> noteIndexes = new HashMap<>();
+        private long written;
+        private long skipped;
+
+        public Writer(Path logFile) throws IOException {
+            channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            OutputStream notes = Files.newOutputStream(notesFile(logFile));
+            notesOut = new DataOutputStream(new BufferedOutputStream(notes, 1 << 16));
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_BYTES).putInt(0).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        }
+
+        private Writer(Path logFile, List<String> existingNotes, long existingRecords) throws IOException {
+            channel = FileChannel.open(logFile, StandardOpenOption.WRITE);
+            // drop a torn last record left by a crash, then continue after the last whole one
+            long end = HEADER_BYTES + existingRecords * RECORD_BYTES;
+            channel.truncate(end);
+            channel.position(end);
+            OutputStream notes = Files.newOutputStream(notesFile(logFile), StandardOpenOption.APPEND);
+            notesOut = new DataOutputStream(new BufferedOutputStream(notes, 1 << 16));
+            for (String note : existingNotes) {
+                noteIndexes.put(note, noteIndexes.size());
+            }
+        }
+
+        // Opens an existing log for appending (creates a new one if it does not exist yet).
+        public static Writer append(Path logFile) throws IOException {
+            if (!Files.exists(logFile)) {
+                return new Writer(logFile);
+            }
+            List<String> notes;
+            long records;
+            try (Reader existing = new Reader(logFile)) {
+                notes = existing.notes();
+                records = existing.recordCount();
+            }
+            return new Writer(logFile, notes, records);
+        }
+
+        // Returns false for a transaction isValidTransaction rejects, or whose amount does not
+        // fit a long number of cents; those are not written.
+        public boolean append(Transaction tx) throws IOException {
+            if (!Main.isValidTransaction(tx)) {
+                skipped++;
+                return false;
+            }
+            long amountCents;
+            try {
+                amountCents = CentsLedger.toCents(tx.amount());
+            } catch (ArithmeticException e) {
+                skipped++;
+                return false;
+            }
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.putLong(tx.accountId())
+                    .putLong(amountCents)
+                    .putLong(tx.timestampMillis())
+                    .putInt(noteIndex(tx.note()))
+                    .putChar(tx.type())
+                    .putShort((short) 0);
+            written++;
+            return true;
+        }
+
+        public long written() {
+            return written;
+        }
+
+        public long skipped() {
+            return skipped;
+        }
+
+        private int noteIndex(String note) throws IOException {
+            String key = note == null ? "" : note;
+            Integer index = noteIndexes.get(key);
+            if (index == null) {
+                index = noteIndexes.size();
+                noteIndexes.put(key, index);
+                byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+                notesOut.writeInt(bytes.length);
+                notesOut.write(bytes);
+            }
+            return index;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!channel.isOpen()) {
+                return;
+            }
+            try {
+                flush();
+                channel.force(false);
+            } finally {
+                channel.close();
+                notesOut.close();
+            }
+        }
+    }
+
+    // Read-only view of a log. The record file is memory-mapped; field reads go straight to the
+    // page cache. A single mapping is limited to 2 GB, so big logs are mapped in segments.
+    public static class Reader implements AutoCloseable {
+
+        // 2^25 records * 32 bytes = 1 GB per mapping; records never straddle two segments
+        private static final int RECORDS_PER_SEGMENT = 1 << 25;
+
+        private final Path logFile;
+        private final MappedByteBuffer[] segments;
+        private final long recordCount;
+        private List<String> notes;
+
+        public Reader(Path logFile) throws IOException {
+            this.logFile = logFile;
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < HEADER_BYTES) {
+                    throw new IOException("Not a transaction log (too short): " + logFile);
+                }
+                ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != RECORD_BYTES) {
+                    throw new IOException("Not a version " + VERSION + " transaction log: " + logFile);
+                }
+                // a torn last record (crash while writing) is ignored
+                recordCount = (size - HEADER_BYTES) / RECORD_BYTES;
+
+                int segmentCount = (int) ((recordCount + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT);
+                segments = new MappedByteBuffer[segmentCount];
+                for (int s = 0; s < segmentCount; s++) {
+                    long first = (long) s * RECORDS_PER_SEGMENT;
+                    long records = Math.min(RECORDS_PER_SEGMENT, recordCount - first);
+                    MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY,
+                            HEADER_BYTES + first * RECORD_BYTES, records * RECORD_BYTES);
+                    segment.order(ByteOrder.LITTLE_ENDIAN);
+                    segments[s] = segment;
+                }
+            }
+            // the mapping stays valid after the channel is closed
+        }
+
+        public long recordCount() {
+            return recordCount;
+        }
+
+        public char type(long index) {
+            return segment(index).getChar(offset(index) + TYPE);
+        }
+
+        public long accountId(long index) {
+            return segment(index).getLong(offset(index) + ACCOUNT_ID);
+        }
+
+        public long amountCents(long index) {
+            return segment(index).getLong(offset(index) + AMOUNT_CENTS);
+        }
+
+        public long timestampMillis(long index) {
+            return segment(index).getLong(offset(index) + TIMESTAMP);
+        }
+
+        public int noteIndex(long index) {
+            return segment(index).getInt(offset(index) + NOTE_INDEX);
+        }
+
+        // Decodes the note - allocates, so keep it off replay loops.
+        public String note(long index) throws IOException {
+            return notes().get(noteIndex(index));
+        }
+
+        // Rebuilds the full record as a Transaction (allocates; for display and debugging).
+        public Transaction transaction(long index) throws IOException {
+            return new Transaction(type(index), accountId(index), CentsLedger.fromCents(amountCents(index)),
+                    timestampMillis(index), note(index));
+        }
+
+        // Visits records [fromIndex, recordCount) in order. No objects are created per record.
+        public void forEach(long fromIndex, RecordVisitor visitor) {
+            forEach(fromIndex, recordCount, visitor);
+        }
+
+        // Visits records [fromIndex, toIndex) in order.
+        public void forEach(long fromIndex, long toIndex, RecordVisitor visitor) {
+            long end = Math.min(toIndex, recordCount);
+            if (fromIndex < 0 || fromIndex > end) {
+                throw new IndexOutOfBoundsException("Range " + fromIndex + ".." + toIndex + " of " + recordCount);
+            }
+            for (int s = (int) (fromIndex / RECORDS_PER_SEGMENT); s < segments.length; s++) {
+                MappedByteBuffer segment = segments[s];
+                long segmentFirst = (long) s * RECORDS_PER_SEGMENT;
+                if (segmentFirst >= end) {
+                    break;
+                }
+                int first = (int) Math.max(0, fromIndex - segmentFirst);
+                int last = (int) Math.min(segment.limit() / RECORD_BYTES, end - segmentFirst);
+                for (int r = first; r < last; r++) {
+                    int at = r * RECORD_BYTES;
+                    visitor.visit(segmentFirst + r,
+                            segment.getChar(at + TYPE),
+                            segment.getLong(at + ACCOUNT_ID),
+                            segment.getLong(at + AMOUNT_CENTS),
+                            segment.getLong(at + TIMESTAMP));
+                }
+            }
+        }
+
+        // Applies records [fromIndex, recordCount) to the ledger; returns how many were applied.
+        public long replayInto(CentsLedger ledger, long fromIndex) {
+            return replayInto(ledger, fromIndex, recordCount);
+        }
+
+        // Applies records [fromIndex, toIndex) to the ledger; returns how many were applied.
+        public long replayInto(CentsLedger ledger, long fromIndex, long toIndex) {
+            long[] applied = new long[1];
+            forEach(fromIndex, toIndex, (index, type, accountId, amountCents, timestampMillis) -> {
+                if (ledger.applyCents(type, accountId, amountCents)) {
+                    applied[0]++;
+                }
+            });
+            return applied[0];
+        }
+
+        private List<String> notes() throws IOException {
+            if (notes == null) {
+                ByteBuffer table = ByteBuffer.wrap(Files.readAllBytes(notesFile(logFile)));
+                List<String> loaded = new ArrayList<>();
+                while (table.remaining() >= Integer.BYTES) {
+                    int length = table.getInt();
+                    loaded.add(new String(table.array(), table.position(), length, StandardCharsets.UTF_8));
+                    table.position(table.position() + length);
+                }
+                notes = loaded;
+            }
+            return notes;
+        }
+
+        private MappedByteBuffer segment(long index) {
+            if (index < 0 || index >= recordCount) {
+                throw new IndexOutOfBoundsException("Record " + index + " of " + recordCount);
+            }
+            return segments[(int) (index / RECORDS_PER_SEGMENT)];
+        }
+
+        private static int offset(long index) {
+            return (int) (index % RECORDS_PER_SEGMENT) * RECORD_BYTES;
+        }
+
+        @Override
+        public void close() {
+            // MappedByteBuffers are unmapped by the GC; dropping the references is all we can do
+            Arrays.fill(segments, null);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.example;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+// Ledger core that keeps balances as whole cents in a long instead of a BigDecimal.
+//
+// Why: BigDecimal is immutable, so Main.calculateBalances allocates a new object on every
+// add/subtract. A long balance is updated in place - no garbage per transaction.
+//
+// Why it is still exact:
+// - isValidTransaction only accepts amounts with scale <= 2, so every valid amount is a whole
+//   number of cents and "amount * 100" fits a long without rounding
+// - AccountBalanceMap.addExact throws instead of silently wrapping around; when that happens
+//   (balance beyond +-92 quadrillion dollars) the account moves to a BigDecimal fallback map
+//
+// Balances are reported with scale 2 ("$400.00"), so they are numerically equal to the
+// BigDecimal path (compareTo == 0) even when an input amount was written as "400".
+public class CentsLedger {
+
+    // accountId -> balance in cents, primitive keys and values (no Long / BigDecimal per account)
+    private final AccountBalanceMap cents;
+    // accounts whose balance no longer fits a long; checked only when non-empty
+    private final Map<Long, BigDecimal> overflow = new HashMap<>();
+
+    public CentsLedger() {
+        this(new AccountBalanceMap());
+    }
+
+    public CentsLedger(AccountBalanceMap cents) {
+        this.cents = cents;
+    }
+
+    // Rebuilds a ledger from saved state (see LedgerCheckpointStore).
+    public CentsLedger(AccountBalanceMap cents, Map<Long, BigDecimal> overflow) {
+        this.cents = cents;
+        this.overflow.putAll(overflow);
+    }
+
+    public static Map<Long, BigDecimal> calculateBalances(Iterable<Transaction> transactions) {
+        CentsLedger ledger = new CentsLedger();
+        for (Transaction tx : transactions) {
+            ledger.apply(tx);
+        }
+        return ledger.toBigDecimalMap();
+    }
+
+    // Returns false (and changes nothing) when the transaction is invalid.
+    public boolean apply(Transaction tx) {
+        if (!Main.isValidTransaction(tx)) {
+            return false;
+        }
+        applyValidated(tx);
+        return true;
+    }
+
+    // apply without the validity check, for rows a BatchValidator has already accepted.
+    public void applyValidated(Transaction tx) {
+        long accountId = tx.accountId();
+        long amountCents;
+        try {
+            amountCents = toCents(tx.amount());
+        } catch (ArithmeticException e) {
+            applyExact(accountId, tx.type() == 'D' ? tx.amount() : tx.amount().negate());
+            return;
+        }
+        applyCents(tx.type(), accountId, amountCents);
+    }
+
+    // Same as apply, for callers that already hold the amount in cents (e.g. BinaryTransactionLog).
+    // Allocates nothing unless the account overflows a long.
+    public boolean applyCents(char type, long accountId, long amountCents) {
+        if ((type != 'D' && type != 'W') || amountCents < 0) {
+            return false;
+        }
+        // amountCents >= 0, so negating it for a withdrawal cannot overflow
+        long delta = type == 'D' ? amountCents : -amountCents;
+        if (!overflow.isEmpty() && overflow.containsKey(accountId)) {
+            applyExact(accountId, fromCents(delta));
+            return true;
+        }
+        try {
+            cents.addExact(accountId, delta);
+        } catch (ArithmeticException e) {
+            applyExact(accountId, fromCents(delta));
+        }
+        return true;
+    }
+
+    // Slow path: move the account to BigDecimal (if it is not there yet) and apply exactly.
+    private void applyExact(long accountId, BigDecimal delta) {
+        BigDecimal current = overflow.get(accountId);
+        if (current == null) {
+            current = cents.containsKey(accountId) ? fromCents(cents.get(accountId, 0L)) : BigDecimal.ZERO;
+            cents.remove(accountId);
+        }
+        overflow.put(accountId, current.add(delta));
+    }
+
+    public BigDecimal balance(long accountId) {
+        BigDecimal exact = overflow.get(accountId);
+        if (exact != null) {
+            return exact.setScale(2);
+        }
+        return cents.containsKey(accountId) ? fromCents(cents.get(accountId, 0L)) : null;
+    }
+
+    // The balances that fit a long, in cents. Callers get a copy, not the live table.
+    public AccountBalanceMap centsSnapshot() {
+        return cents.snapshot();
+    }
+
+    // Accounts that overflowed a long and are kept as BigDecimal.
+    public Map<Long, BigDecimal> overflowBalances() {
+        return Map.copyOf(overflow);
+    }
+
+    public int accountCount() {
+        return cents.size() + overflow.size();
+    }
+
+    // BigDecimal objects are only created here, once per account, not once per transaction.
+    public Map<Long, BigDecimal> toBigDecimalMap() {
+        Map<Long, BigDecimal> balances = new HashMap<>(cents.size() + overflow.size());
+        cents.forEach((accountId, balance) -> balances.put(accountId, fromCents(balance)));
+        overflow.forEach((accountId, balance) -> balances.put(accountId, balance.setScale(2)));
+        return balances;
+    }
+
+    // "250.5" -> 25050. Only call with scale <= 2 (isValidTransaction guarantees that).
+    // Throws ArithmeticException when the amount does not fit a long number of cents.
+    static long toCents(BigDecimal amount) {
+        return amount.scaleByPowerOfTen(2).longValueExact();
+    }
+
+    static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,97 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Brings balances up to date from the latest checkpoint instead of from the first transaction.
+//
+// 1. load the newest checkpoint (balances + "next record to apply")
+// 2. replay only the BinaryTransactionLog records after it
+// 3. write a new checkpoint every checkpointEvery records and once at the end
+//
+// So startup cost depends on how many records arrived since the last checkpoint, not on the
+// total history. Checkpoint offsets are record indexes, so keep one checkpoint directory per log.
+//
+// Usage:
+//   IncrementalLedgerReplay <log.txlog> <checkpoint dir> [checkpointEvery]
+//   IncrementalLedgerReplay --append <log.txlog> <text file>    add a new batch to the log
+public class IncrementalLedgerReplay {
+
+    private static final long DEFAULT_CHECKPOINT_EVERY = 1_000_000;
+
+    private final LedgerCheckpointStore store;
+    private final long checkpointEvery;
+
+    public IncrementalLedgerReplay(LedgerCheckpointStore store, long checkpointEvery) {
+        if (checkpointEvery <= 0) {
+            throw new IllegalArgumentException("checkpointEvery must be greater than zero");
+        }
+        this.store = store;
+        this.checkpointEvery = checkpointEvery;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("--append")) {
+            appendBatch(Path.of(args[1]), Path.of(args[2]));
+            return;
+        }
+        if (args.length < 2) {
+            System.out.println("Usage: IncrementalLedgerReplay <log.txlog> <checkpoint dir> [checkpointEvery]"
+                    + " | --append <log.txlog> <text file>");
+            return;
+        }
+        long checkpointEvery = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_CHECKPOINT_EVERY;
+
+        IncrementalLedgerReplay replay = new IncrementalLedgerReplay(new LedgerCheckpointStore(Path.of(args[1])), checkpointEvery);
+        try (BinaryTransactionLog.Reader reader = new BinaryTransactionLog.Reader(Path.of(args[0]))) {
+            CentsLedger ledger = replay.catchUp(reader);
+            if (ledger.accountCount() <= 20) {
+                Main.displayBalances(ledger.toBigDecimalMap());
+            }
+        }
+    }
+
+    public CentsLedger catchUp(BinaryTransactionLog.Reader reader) throws IOException {
+        long start = System.nanoTime();
+        LedgerCheckpointStore.Checkpoint checkpoint = store.loadLatest();
+        long loadedNanos = System.nanoTime() - start;
+
+        long offset = checkpoint.nextOffset();
+        long end = reader.recordCount();
+        if (offset > end) {
+            throw new IllegalStateException("Checkpoint is at record " + offset + " but the log only has "
+                    + end + " records - was the log replaced?");
+        }
+        CentsLedger ledger = checkpoint.ledger();
+        long lastTimestamp = checkpoint.lastTimestampMillis();
+        System.out.printf("Loaded checkpoint at record %,d (%,d accounts) in %,d ms; %,d new records to apply%n",
+                offset, ledger.accountCount(), loadedNanos / 1_000_000, end - offset);
+
+        while (offset < end) {
+            long batchEnd = Math.min(end, offset + checkpointEvery);
+            reader.replayInto(ledger, offset, batchEnd);
+            offset = batchEnd;
+            lastTimestamp = reader.timestampMillis(batchEnd - 1);
+            store.save(new LedgerCheckpointStore.Checkpoint(offset, lastTimestamp, ledger));
+        }
+
+        System.out.printf("Up to date at record %,d (last timestamp %d) in %,d ms total%n",
+                offset, lastTimestamp, (System.nanoTime() - start) / 1_000_000);
+        return ledger;
+    }
+
+    static void appendBatch(Path logFile, Path textFile) throws IOException {
+        try (BinaryTransactionLog.Writer writer = BinaryTransactionLog.Writer.append(logFile)) {
+            TransactionFile.readInChunks(textFile, 10_000, chunk -> {
+                try {
+                    for (Transaction tx : chunk) {
+                        writer.append(tx);
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not append to " + logFile, e);
+                }
+            });
+            System.out.printf("Appended %,d records to %s%n", writer.written(), logFile);
+        }
+    }
+}
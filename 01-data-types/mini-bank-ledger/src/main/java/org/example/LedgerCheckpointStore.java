@@ -0,0 +1,182 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Saves and loads balance checkpoints in a local directory.
+//
+// A checkpoint says: "after applying the first <nextOffset> records of the log, the balances
+// were exactly these". Restarting from it means replaying only the records after nextOffset.
+//
+// File: checkpoint-<nextOffset, zero padded>.bin
+//   int magic, int version, long nextOffset, long lastTimestampMillis,
+//   int centsCount,    centsCount    x (long accountId, long cents),
+//   int overflowCount, overflowCount x (long accountId, UTF balance),
+//   long CRC32 of everything before it
+//
+// Crash safety: the file is written under a temporary name, fsynced, then renamed, and the
+// directory is fsynced so the rename survives a crash too. A reader either sees a complete
+// checkpoint or none; a damaged one (bad CRC) is skipped in favour of the previous one.
+// Only the newest KEEP_CHECKPOINTS files are kept.
+public class LedgerCheckpointStore {
+
+    private static final int MAGIC = 0x434B5054; // "CKPT"
+    private static final int VERSION = 1;
+    private static final int KEEP_CHECKPOINTS = 3;
+    private static final String PREFIX = "checkpoint-";
+    private static final String SUFFIX = ".bin";
+
+    public record Checkpoint(long nextOffset, long lastTimestampMillis, CentsLedger ledger) { }
+
+    private final Path directory;
+
+    public LedgerCheckpointStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    public Path save(Checkpoint checkpoint) throws IOException {
+        Path target = directory.resolve(String.format("%s%019d%s", PREFIX, checkpoint.nextOffset(), SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+
+        CRC32 crc = new CRC32();
+        try (OutputStream file = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(checkpoint.nextOffset());
+            out.writeLong(checkpoint.lastTimestampMillis());
+
+            AccountBalanceMap cents = checkpoint.ledger().centsSnapshot();
+            out.writeInt(cents.size());
+            IOException[] failure = new IOException[1];
+            cents.forEach((accountId, balance) -> {
+                if (failure[0] == null) {
+                    try {
+                        out.writeLong(accountId);
+                        out.writeLong(balance);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+
+            Map<Long, BigDecimal> overflow = checkpoint.ledger().overflowBalances();
+            out.writeInt(overflow.size());
+            for (Map.Entry<Long, BigDecimal> entry : overflow.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeUTF(entry.getValue().toPlainString());
+            }
+            out.flush();
+            // the CRC covers everything written so far; the value itself is not part of it
+            new DataOutputStream(file).writeLong(crc.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        forceDirectory();
+        deleteOldCheckpoints();
+        return target;
+    }
+
+    // The rename is only durable once the directory entry is; not possible on every platform.
+    private void forceDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // e.g. Windows cannot open a directory as a channel: best effort only
+        }
+    }
+
+    // Newest readable checkpoint, or an empty one (offset 0) when there is none.
+    public Checkpoint loadLatest() throws IOException {
+        List<Path> files = checkpointFiles();
+        for (int i = files.size() - 1; i >= 0; i--) {
+            try {
+                return load(files.get(i));
+            } catch (IOException e) {
+                System.out.println("Skipping unreadable checkpoint " + files.get(i).getFileName() + ": " + e.getMessage());
+            }
+        }
+        return new Checkpoint(0L, 0L, new CentsLedger());
+    }
+
+    Checkpoint load(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream raw = Files.newInputStream(file);
+             InputStream buffered = new BufferedInputStream(raw, 1 << 16);
+             DataInputStream checked = new DataInputStream(new CheckedInputStream(buffered, crc))) {
+            if (checked.readInt() != MAGIC || checked.readInt() != VERSION) {
+                throw new IOException("not a version " + VERSION + " checkpoint");
+            }
+            long nextOffset = checked.readLong();
+            long lastTimestampMillis = checked.readLong();
+
+            int centsCount = checked.readInt();
+            AccountBalanceMap cents = new AccountBalanceMap(centsCount);
+            for (int i = 0; i < centsCount; i++) {
+                cents.put(checked.readLong(), checked.readLong());
+            }
+            int overflowCount = checked.readInt();
+            Map<Long, BigDecimal> overflow = new HashMap<>();
+            for (int i = 0; i < overflowCount; i++) {
+                overflow.put(checked.readLong(), new BigDecimal(checked.readUTF()));
+            }
+
+            long expected = crc.getValue();
+            // read the stored CRC around the checksum stream so it is not added to it
+            long stored = new DataInputStream(buffered).readLong();
+            if (stored != expected) {
+                throw new IOException("checksum mismatch");
+            }
+            return new Checkpoint(nextOffset, lastTimestampMillis, new CentsLedger(cents, overflow));
+        } catch (EOFException e) {
+            throw new IOException("truncated checkpoint", e);
+        }
+    }
+
+    // Oldest first.
+    private List<Path> checkpointFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files
+                    .filter(p -> p.getFileName().toString().startsWith(PREFIX) && p.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList());
+        }
+    }
+
+    private void deleteOldCheckpoints() throws IOException {
+        List<Path> files = checkpointFiles();
+        for (int i = 0; i < files.size() - KEEP_CHECKPOINTS; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+}
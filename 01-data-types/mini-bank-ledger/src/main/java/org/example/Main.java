@@ -0,0 +1,153 @@
+package org.example;
+
+// Mini Bank Ledger
+// Goal: demonstrate correct usage of Java data types in a banking-like domain
+//
+// Rules:
+// - Use BigDecimal for money (2 decimal places)
+// - Use long for accountId and timestamps
+// - Use char for transaction type: 'D' or 'W'
+// - Reject invalid transactions
+//
+// Usage: Main [SEQUENTIAL|PARALLEL|CENTS|COMPARE] [syntheticTransactionCount]
+// - no arguments runs the four sample transactions sequentially
+// - a count replaces the samples with TransactionGenerator data (handy for COMPARE)
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Main {
+
+    public static void main(String[] args) {
+
+        BalanceMode mode = args.length > 0 ? BalanceMode.fromArg(args[0]) : BalanceMode.SEQUENTIAL;
+
+        List<Transaction> transactions = args.length > 1
+                ? TransactionGenerator.generate(Integer.parseInt(args[1]), 100_000, 42L)
+                : List.of(
+                new Transaction('D', 100000000001L,
+                        new BigDecimal("250.50"),
+                        System.currentTimeMillis(),
+                        "Salary"),
+
+                new Transaction('W', 100000000001L,
+                        new BigDecimal("50.75"),
+                        System.currentTimeMillis(),
+                        "Groceries"),
+
+                new Transaction('D', 100000000002L,
+                        new BigDecimal("500.00"),
+                        System.currentTimeMillis(),
+                        "Freelance Payment"),
+
+                new Transaction('W', 100000000002L,
+                        new BigDecimal("100.00"),
+                        System.currentTimeMillis(),
+                        "Utilities")
+        );
+
+        System.out.println("Transactions loaded: " + transactions.size());
+
+        // Calculate and display balances
+        Map<Long, BigDecimal> balances = calculateBalances(transactions, mode);
+        if (balances.size() <= 20) {
+            displayBalances(balances);
+        } else {
+            System.out.println("Accounts with a balance: " + balances.size());
+        }
+    }
+
+    static Map<Long, BigDecimal> calculateBalances(List<Transaction> transactions, BalanceMode mode) {
+        return switch (mode) {
+            case SEQUENTIAL -> calculateBalances(transactions);
+            case PARALLEL -> new ParallelBalanceEngine().calculateBalances(transactions);
+            case CENTS -> CentsLedger.calculateBalances(transactions);
+            case COMPARE -> compareBalanceEngines(transactions);
+        };
+    }
+
+    // Runs every engine on the same input and fails loudly if they disagree.
+    // PARALLEL must match exactly: Map.equals uses BigDecimal.equals, so even a different scale
+    // (250.5 vs 250.50) counts as a mismatch. CENTS always reports scale 2, so it is compared by value.
+    static Map<Long, BigDecimal> compareBalanceEngines(List<Transaction> transactions) {
+        long start = System.nanoTime();
+        Map<Long, BigDecimal> sequential = calculateBalances(transactions);
+        long sequentialNanos = System.nanoTime() - start;
+
+        ParallelBalanceEngine engine = new ParallelBalanceEngine();
+        start = System.nanoTime();
+        Map<Long, BigDecimal> parallel = engine.calculateBalances(transactions);
+        long parallelNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        Map<Long, BigDecimal> cents = CentsLedger.calculateBalances(transactions);
+        long centsNanos = System.nanoTime() - start;
+
+        if (!sequential.equals(parallel)) {
+            throw new IllegalStateException("Parallel balances differ from sequential balances");
+        }
+        if (!sameAmounts(sequential, cents)) {
+            throw new IllegalStateException("Cents balances differ from sequential balances");
+        }
+        System.out.printf("SEQUENTIAL: %,d ms | PARALLEL (%d shards): %,d ms | CENTS: %,d ms | results identical%n",
+                sequentialNanos / 1_000_000, engine.shardCount(), parallelNanos / 1_000_000, centsNanos / 1_000_000);
+        return sequential;
+    }
+
+    // Same accounts, and every balance equal by value (compareTo, so 400 == 400.00).
+    static boolean sameAmounts(Map<Long, BigDecimal> expected, Map<Long, BigDecimal> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (Map.Entry<Long, BigDecimal> entry : expected.entrySet()) {
+            BigDecimal other = actual.get(entry.getKey());
+            if (other == null || entry.getValue().compareTo(other) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isValidTransaction(Transaction tx) {
+        if (tx.type() != 'D' && tx.type() != 'W') {
+            return false;
+        }
+        if (tx.amount().scale() > 2 || tx.amount().compareTo(BigDecimal.ZERO) < 0) {
+            return false;
+        }
+        return true;
+    }
+
+    static Map<Long, BigDecimal> calculateBalances(List<Transaction> transactions) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+
+        for (Transaction tx : transactions) {
+            if (!isValidTransaction(tx)) {
+                System.out.println("Invalid transaction skipped: " + tx);
+                continue;
+            }
+
+            long accountId = tx.accountId();
+            BigDecimal currentBalance = balances.getOrDefault(accountId, BigDecimal.ZERO);
+
+            if (tx.type() == 'D') {
+                balances.put(accountId, currentBalance.add(tx.amount()));
+            } else if (tx.type() == 'W') {
+                balances.put(accountId, currentBalance.subtract(tx.amount()));
+            }
+        }
+
+        return balances;
+    }
+
+    static void displayBalances(Map<Long, BigDecimal> balances) {
+        System.out.println("\n========== Account Balances ==========");
+        balances.forEach((accountId, balance) -> {
+            System.out.printf("Account ID: %d | Balance: $%.2f%n", accountId, balance);
+        });
+        System.out.println("=====================================\n");
+    }
+
+}
\ No newline at end of file
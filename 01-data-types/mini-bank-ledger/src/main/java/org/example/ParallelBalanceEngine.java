@@ -0,0 +1,182 @@
+package org.example;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Parallel version of Main.calculateBalances.
+//
+// Idea: shard by accountId.
+// - Every account belongs to exactly one shard, so two threads never update the same balance
+//   and each shard can use a plain (unsynchronized) HashMap.
+// - Within a shard the transactions are applied in their original list order, so the
+//   per-account sequence is the same as in the sequential loop.
+// - Because the shards own disjoint accounts, "merging" the partial maps is just putAll.
+//
+// It runs in two phases on a ForkJoinPool:
+//   1. partition - split the list into chunks, count how many transactions of each chunk go to
+//                  each shard, then scatter the list indexes into one int[] grouped by shard
+//                  (a counting sort, so no per-shard lists are allocated)
+//   2. apply     - one task per shard walks its slice of that int[] and builds its balances
+public class ParallelBalanceEngine {
+
+    // below this size the thread hand-off costs more than it saves
+    private static final int SEQUENTIAL_THRESHOLD = 10_000;
+
+    private final ForkJoinPool pool;
+    private final int shardCount;
+
+    public ParallelBalanceEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelBalanceEngine(ForkJoinPool pool) {
+        // a few shards per worker so one hot shard does not leave the other cores idle
+        this(pool, pool.getParallelism() * 4);
+    }
+
+    public ParallelBalanceEngine(ForkJoinPool pool, int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be greater than zero");
+        }
+        this.pool = pool;
+        // power of two so shardOf() can use a mask instead of %
+        this.shardCount = shardCount == 1 ? 1 : Integer.highestOneBit(shardCount - 1) << 1;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public Map<Long, BigDecimal> calculateBalances(List<Transaction> transactions) {
+        int size = transactions.size();
+        if (size < SEQUENTIAL_THRESHOLD || shardCount == 1) {
+            return applyRange(transactions, null, 0, size);
+        }
+
+        Partition partition = partitionByShard(transactions);
+        int[] order = partition.order();
+        int[] shardStart = partition.shardStart();
+
+        List<Callable<Map<Long, BigDecimal>>> shardTasks = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int from = shardStart[shard];
+            int to = shardStart[shard + 1];
+            if (from < to) {
+                shardTasks.add(() -> applyRange(transactions, order, from, to));
+            }
+        }
+
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (Future<Map<Long, BigDecimal>> partial : pool.invokeAll(shardTasks)) {
+            // disjoint keys - no account can appear in two partial maps
+            balances.putAll(join(partial));
+        }
+        return balances;
+    }
+
+    // order      - the list indexes grouped by shard, original order kept inside each group
+    // shardStart - order[shardStart[s]] .. order[shardStart[s + 1] - 1] belong to shard s
+    private record Partition(int[] order, int[] shardStart) { }
+
+    // Phase 1
+    private Partition partitionByShard(List<Transaction> transactions) {
+        int size = transactions.size();
+        int chunkCount = Math.max(1, Math.min(pool.getParallelism() * 4, size / SEQUENTIAL_THRESHOLD));
+        int chunkSize = (size + chunkCount - 1) / chunkCount;
+
+        // counts[c][s] = how many transactions of chunk c belong to shard s
+        int[][] counts = new int[chunkCount][];
+        List<Callable<Void>> countTasks = new ArrayList<>(chunkCount);
+        for (int c = 0; c < chunkCount; c++) {
+            int chunk = c;
+            countTasks.add(() -> {
+                int[] chunkCounts = new int[shardCount];
+                int to = Math.min(size, (chunk + 1) * chunkSize);
+                for (int i = chunk * chunkSize; i < to; i++) {
+                    chunkCounts[shardOf(transactions.get(i).accountId())]++;
+                }
+                counts[chunk] = chunkCounts;
+                return null;
+            });
+        }
+        joinAll(pool.invokeAll(countTasks));
+
+        // exclusive prefix sum in (shard, chunk) order -> where each chunk writes inside each shard
+        int[][] writeAt = new int[chunkCount][shardCount];
+        int[] shardStart = new int[shardCount + 1];
+        int offset = 0;
+        for (int s = 0; s < shardCount; s++) {
+            shardStart[s] = offset;
+            for (int c = 0; c < chunkCount; c++) {
+                writeAt[c][s] = offset;
+                offset += counts[c][s];
+            }
+        }
+        shardStart[shardCount] = offset;
+
+        int[] order = new int[size];
+        List<Callable<Void>> scatterTasks = new ArrayList<>(chunkCount);
+        for (int c = 0; c < chunkCount; c++) {
+            int chunk = c;
+            scatterTasks.add(() -> {
+                int[] position = writeAt[chunk];
+                int to = Math.min(size, (chunk + 1) * chunkSize);
+                for (int i = chunk * chunkSize; i < to; i++) {
+                    order[position[shardOf(transactions.get(i).accountId())]++] = i;
+                }
+                return null;
+            });
+        }
+        joinAll(pool.invokeAll(scatterTasks));
+        return new Partition(order, shardStart);
+    }
+
+    // Phase 2: the same loop as Main.calculateBalances, over one shard.
+    // order == null means "no indirection", used for small inputs.
+    private static Map<Long, BigDecimal> applyRange(List<Transaction> transactions, int[] order, int from, int to) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (int i = from; i < to; i++) {
+            Transaction tx = transactions.get(order == null ? i : order[i]);
+            if (!Main.isValidTransaction(tx)) {
+                continue;
+            }
+            BigDecimal currentBalance = balances.getOrDefault(tx.accountId(), BigDecimal.ZERO);
+            if (tx.type() == 'D') {
+                balances.put(tx.accountId(), currentBalance.add(tx.amount()));
+            } else {
+                balances.put(tx.accountId(), currentBalance.subtract(tx.amount()));
+            }
+        }
+        return balances;
+    }
+
+    int shardOf(long accountId) {
+        // account IDs are sequential, so mix the bits before masking to spread them evenly
+        long h = accountId * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (shardCount - 1);
+    }
+
+    private static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Balance calculation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Balance calculation failed", e.getCause());
+        }
+    }
+
+    private static void joinAll(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            join(future);
+        }
+    }
+}
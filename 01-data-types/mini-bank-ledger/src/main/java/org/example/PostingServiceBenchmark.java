@@ -0,0 +1,101 @@
+package org.example;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+// Throughput of LedgerPostingService (striped locks) against one globally locked CentsLedger,
+// from 1 to 64 producer threads, on a skewed account distribution.
+//
+// Usage: PostingServiceBenchmark [postsPerThread] [accounts] [skew]
+//        defaults: 500000 posts per thread, 100000 accounts, skew 3.0
+// skew > 1 concentrates posts on low account numbers (skew 3: ~21% of the posts hit the first 1%).
+//
+// Each run's balances are compared with the baseline's, so the benchmark also checks that
+// concurrent posting loses no updates.
+public class PostingServiceBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    private interface Poster {
+        void post(char type, long accountId, long amountCents);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int postsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int accounts = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        double skew = args.length > 2 ? Double.parseDouble(args[2]) : 3.0;
+
+        System.out.printf("Cores: %d | %,d posts/thread | %,d accounts | skew %.1f%n",
+                Runtime.getRuntime().availableProcessors(), postsPerThread, accounts, skew);
+        System.out.printf("%8s | %18s | %18s | %s%n", "threads", "global lock", "striped", "speedup");
+
+        for (int threads : THREAD_COUNTS) {
+            long[][] work = generateWork(threads, postsPerThread, accounts, skew);
+
+            CentsLedger globalLedger = new CentsLedger();
+            double globalRate = run(work, (type, accountId, amountCents) -> {
+                synchronized (globalLedger) {
+                    globalLedger.applyCents(type, accountId, amountCents);
+                }
+            });
+
+            LedgerPostingService service = new LedgerPostingService();
+            double stripedRate = run(work, service::postCents);
+
+            Map<Long, BigDecimal> expected = globalLedger.toBigDecimalMap();
+            if (!expected.equals(service.snapshot())) {
+                throw new IllegalStateException("Striped balances differ from the global-lock balances");
+            }
+            System.out.printf("%8d | %,13.0f tx/s | %,13.0f tx/s | %.2fx%n", threads, globalRate, stripedRate, stripedRate / globalRate);
+        }
+    }
+
+    // Per thread: [accountId, signed cents] pairs packed into one long[] (no objects in the hot loop).
+    private static long[][] generateWork(int threads, int postsPerThread, int accounts, double skew) {
+        long[][] work = new long[threads][];
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(31L * t + 1);
+            long[] posts = new long[postsPerThread * 2];
+            for (int i = 0; i < postsPerThread; i++) {
+                int account = (int) (accounts * Math.pow(random.nextDouble(), skew));
+                posts[2 * i] = TransactionGenerator.FIRST_ACCOUNT_ID + account;
+                long cents = random.nextLong(1, 100_000_00L);
+                posts[2 * i + 1] = random.nextInt(3) == 0 ? -cents : cents;
+            }
+            work[t] = posts;
+        }
+        return work;
+    }
+
+    // Starts all threads together and returns posts per second.
+    private static double run(long[][] work, Poster poster) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[work.length];
+        for (int t = 0; t < work.length; t++) {
+            long[] posts = work[t];
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < posts.length; i += 2) {
+                    long cents = posts[i + 1];
+                    poster.post(cents < 0 ? 'W' : 'D', posts[i], Math.abs(cents));
+                }
+            });
+            threads[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        long total = (long) work.length * (work[0].length / 2);
+        return total * 1_000_000_000.0 / elapsed;
+    }
+}
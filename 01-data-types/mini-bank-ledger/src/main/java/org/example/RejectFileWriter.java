@@ -0,0 +1,131 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Writes rejected transactions to a file on a background thread.
+//
+// The replay thread only puts (reason, transaction) on a bounded queue; formatting the line and
+// the file I/O happen on the writer thread, through a large BufferedWriter. If the writer falls
+// behind, the queue fills and reject() blocks - rejections are slowed down, never dropped.
+//
+// File format, one rejection per line (same columns as TransactionFile, reason first):
+//   reason,type,accountId,amount,timestampMillis,note
+public class RejectFileWriter implements AutoCloseable {
+
+    private static final int QUEUE_CAPACITY = 64 * 1024;
+    private static final int DRAIN_BATCH = 4096;
+
+    private record Rejection(RejectReason reason, Transaction tx) { }
+
+    // put on the queue by close() to tell the writer thread to finish
+    private static final Rejection END = new Rejection(null, null);
+
+    private final Path file;
+    private final BlockingQueue<Rejection> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writerThread;
+    private volatile IOException failure;
+    private long written;
+    private boolean closed;
+
+    public RejectFileWriter(Path file) throws IOException {
+        this.file = file;
+        BufferedWriter writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16);
+        writerThread = new Thread(() -> drain(writer), "reject-file-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public void reject(RejectReason reason, Transaction tx) {
+        if (closed) {
+            throw new IllegalStateException("Reject file already closed: " + file);
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Could not write rejections to " + file, failure);
+        }
+        try {
+            queue.put(new Rejection(reason, tx));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a rejection", e);
+        }
+    }
+
+    // Queues every transaction of the batch whose reason code is not 0 (see BatchValidator).
+    public void rejectAll(List<Transaction> batch, byte[] reasons) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (reasons[i] != 0) {
+                reject(RejectReason.fromCode(reasons[i]), batch.get(i));
+            }
+        }
+    }
+
+    private void drain(BufferedWriter writer) {
+        List<Rejection> batch = new ArrayList<>(DRAIN_BATCH);
+        try (writer) {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                for (Rejection rejection : batch) {
+                    if (rejection == END) {
+                        return;
+                    }
+                    writer.write(rejection.reason().name());
+                    writer.write(TransactionFile.DELIMITER);
+                    writer.write(TransactionFile.format(rejection.tx()));
+                    writer.newLine();
+                    written++;
+                }
+                batch.clear();
+            }
+        } catch (IOException e) {
+            failure = e;
+            discardUntilEnd();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // After a write failure: keep taking from the queue so producers blocked in reject() are
+    // released, until close() sends END.
+    private void discardUntilEnd() {
+        try {
+            while (queue.take() != END) {
+                // dropped - close() reports the failure
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Number of lines written; exact after close().
+    public long written() {
+        return written;
+    }
+
+    // Waits until every queued rejection is on disk.
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(END);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing " + file, e);
+        }
+        if (failure != null) {
+            throw new IOException("Could not write rejections to " + file, failure);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.example;
+
+// Why a transaction was rejected. Mirrors the checks in Main.isValidTransaction.
+public enum RejectReason {
+    INVALID_TYPE,       // type is not 'D' or 'W'
+    TOO_MANY_DECIMALS,  // amount has more than 2 decimal places
+    NEGATIVE_AMOUNT;    // amount is below zero
+
+    // Code stored per transaction by BatchValidator; 0 means "valid".
+    byte code() {
+        return (byte) (ordinal() + 1);
+    }
+
+    static RejectReason fromCode(byte code) {
+        return values()[code - 1];
+    }
+}
@@ -0,0 +1,109 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Replays a transaction file (see TransactionFile) without loading it into memory.
+//
+// Pipeline: read a chunk of lines -> parse -> BatchValidator (whole chunk) -> apply the valid
+// ones to CentsLedger; rejections go to an optional RejectFileWriter on its own thread.
+// Memory stays flat: one chunk of Transaction objects plus the balance table, which only
+// grows with the number of accounts, never with the number of rows.
+//
+// Usage:
+//   StreamingLedgerReplay <file> [chunkSize] [rejectFile] replay a file
+//   StreamingLedgerReplay --generate <file> <rows>        write a synthetic file to replay
+public class StreamingLedgerReplay {
+
+    private static final int DEFAULT_CHUNK_SIZE = 10_000;
+    private static final long PROGRESS_EVERY_ROWS = 5_000_000;
+
+    private final CentsLedger ledger = new CentsLedger();
+    private final BatchValidator validator = new BatchValidator();
+    private final RejectFileWriter rejects;
+    private byte[] reasons = new byte[0];
+    private long rowsSinceStart;
+    private long nextProgressAt = PROGRESS_EVERY_ROWS;
+    private long startNanos;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("--generate")) {
+            generate(Path.of(args[1]), Long.parseLong(args[2]));
+            return;
+        }
+        if (args.length < 1) {
+            System.out.println("Usage: StreamingLedgerReplay <file> [chunkSize] [rejectFile] | --generate <file> <rows>");
+            return;
+        }
+        int chunkSize = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CHUNK_SIZE;
+
+        try (RejectFileWriter rejects = args.length > 2 ? new RejectFileWriter(Path.of(args[2])) : null) {
+            StreamingLedgerReplay replay = new StreamingLedgerReplay(rejects);
+            replay.replay(Path.of(args[0]), chunkSize);
+
+            if (replay.ledger.accountCount() <= 20) {
+                Main.displayBalances(replay.ledger.toBigDecimalMap());
+            }
+        }
+    }
+
+    // rejects may be null: rejections are then only counted
+    public StreamingLedgerReplay(RejectFileWriter rejects) {
+        this.rejects = rejects;
+    }
+
+    public CentsLedger replay(Path file, int chunkSize) throws IOException {
+        startNanos = System.nanoTime();
+        TransactionFile.ReadStats stats = TransactionFile.readInChunks(file, chunkSize, this::applyChunk);
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        System.out.printf("Replayed %s: %,d rows | %,d applied | %,d invalid | %,d malformed | %,d accounts%n",
+                file.getFileName(), stats.lines(), validator.validCount(), validator.rejectedCount(),
+                stats.malformed(), ledger.accountCount());
+        System.out.println("Rejected by reason: " + validator.summary());
+        System.out.printf("Elapsed %,d ms | %,.0f rows/s%n", elapsedNanos / 1_000_000, rowsPerSecond(stats.lines(), elapsedNanos));
+        return ledger;
+    }
+
+    private void applyChunk(List<Transaction> chunk) {
+        if (reasons.length < chunk.size()) {
+            reasons = new byte[chunk.size()];
+        }
+        int valid = validator.validate(chunk, reasons);
+        for (int i = 0; i < chunk.size(); i++) {
+            if (reasons[i] == 0) {
+                // already validated above: skip isValidTransaction for the second time
+                ledger.applyValidated(chunk.get(i));
+            }
+        }
+        // rejections are only queued here; formatting and file I/O happen on the writer thread
+        if (rejects != null && valid < chunk.size()) {
+            rejects.rejectAll(chunk, reasons);
+        }
+        rowsSinceStart += chunk.size();
+        if (rowsSinceStart >= nextProgressAt) {
+            nextProgressAt += PROGRESS_EVERY_ROWS;
+            System.out.printf("  ... %,d rows | %,.0f rows/s%n", rowsSinceStart,
+                    rowsPerSecond(rowsSinceStart, System.nanoTime() - startNanos));
+        }
+    }
+
+    private static double rowsPerSecond(long rows, long nanos) {
+        return nanos == 0 ? 0 : rows * 1_000_000_000.0 / nanos;
+    }
+
+    // Writes the file in batches so even a huge file is generated with flat memory.
+    static void generate(Path file, long rows) throws IOException {
+        Files.deleteIfExists(file);
+        int batch = 100_000;
+        long written = 0;
+        for (long seed = 1; written < rows; seed++) {
+            int count = (int) Math.min(batch, rows - written);
+            TransactionFile.append(file, TransactionGenerator.generate(count, 100_000, seed));
+            written += count;
+        }
+        System.out.printf("Wrote %,d transactions to %s (%,d MB)%n", rows, file, Files.size(file) / (1024 * 1024));
+    }
+}
@@ -0,0 +1,127 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Delimited text file of transactions, one per line:
+//
+//   type,accountId,amount,timestampMillis,note
+//   D,100000000001,250.50,1700000000000,Salary
+//
+// - the note is the last column, so it may itself contain commas
+// - blank lines and lines starting with '#' are ignored
+//
+// readInChunks streams the file: only one chunk of Transaction objects is alive at a time,
+// so memory use does not grow with the file size.
+public class TransactionFile {
+
+    static final char DELIMITER = ',';
+    private static final int READ_BUFFER_CHARS = 1 << 16;
+
+    private TransactionFile() {
+    }
+
+    // Counters for one pass over a file.
+    public static class ReadStats {
+        long lines;
+        long parsed;
+        long malformed;
+
+        public long lines() {
+            return lines;
+        }
+
+        public long parsed() {
+            return parsed;
+        }
+
+        public long malformed() {
+            return malformed;
+        }
+    }
+
+    // Calls chunkConsumer with up to chunkSize parsed transactions at a time.
+    // The list is reused for the next chunk, so the consumer must not keep a reference to it.
+    // Lines that cannot be parsed are counted as malformed and skipped.
+    public static ReadStats readInChunks(Path file, int chunkSize, Consumer<List<Transaction>> chunkConsumer)
+            throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be greater than zero");
+        }
+        ReadStats stats = new ReadStats();
+        List<Transaction> chunk = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(
+                Files.newBufferedReader(file, StandardCharsets.UTF_8), READ_BUFFER_CHARS)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.charAt(0) == '#') {
+                    continue;
+                }
+                stats.lines++;
+                Transaction tx = parse(line);
+                if (tx == null) {
+                    stats.malformed++;
+                    continue;
+                }
+                stats.parsed++;
+                chunk.add(tx);
+                if (chunk.size() == chunkSize) {
+                    chunkConsumer.accept(chunk);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(chunk);
+        }
+        return stats;
+    }
+
+    // Returns null for a line that does not have five columns or whose numbers do not parse.
+    // Business rules (type D/W, scale <= 2, not negative) are left to isValidTransaction.
+    static Transaction parse(String line) {
+        int first = line.indexOf(DELIMITER);
+        int second = first < 0 ? -1 : line.indexOf(DELIMITER, first + 1);
+        int third = second < 0 ? -1 : line.indexOf(DELIMITER, second + 1);
+        int fourth = third < 0 ? -1 : line.indexOf(DELIMITER, third + 1);
+        if (fourth < 0 || first != 1) {
+            return null;
+        }
+        try {
+            char type = line.charAt(0);
+            long accountId = Long.parseLong(line, first + 1, second, 10);
+            BigDecimal amount = new BigDecimal(line.substring(second + 1, third));
+            long timestampMillis = Long.parseLong(line, third + 1, fourth, 10);
+            String note = line.substring(fourth + 1);
+            return new Transaction(type, accountId, amount, timestampMillis, note);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static String format(Transaction tx) {
+        return tx.type() + "," + tx.accountId() + "," + tx.amount().toPlainString() + ","
+                + tx.timestampMillis() + "," + tx.note();
+    }
+
+    // Appends transactions to the file (creating it if needed).
+    public static void append(Path file, Iterable<Transaction> transactions) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Transaction tx : transactions) {
+                writer.write(format(tx));
+                writer.newLine();
+            }
+        }
+    }
+}
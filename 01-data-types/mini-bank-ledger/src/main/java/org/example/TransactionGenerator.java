@@ -0,0 +1,60 @@
+package org.example;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Builds synthetic transaction lists so the balance engines can be exercised with
+// realistic volumes instead of the four hand-written records in Main.
+//
+// The same seed always produces the same list, which makes runs comparable.
+public class TransactionGenerator {
+
+    static final long FIRST_ACCOUNT_ID = 100000000001L;
+
+    private TransactionGenerator() {
+    }
+
+    static List<Transaction> generate(int count, int accountCount, long seed) {
+        return generate(count, accountCount, 1.0, 0.0, seed);
+    }
+
+    // skew        - 1.0 spreads transactions evenly over the accounts; larger values concentrate
+    //               them on the first accounts (accountIndex = accountCount * random^skew),
+    //               e.g. 3.0 sends about 21% of them to the first 1% of accounts (0.01^(1/3))
+    //               and half of them to the first 12.5%
+    // invalidRate - fraction of transactions that isValidTransaction rejects (bad type,
+    //               three decimal places or a negative amount, in equal parts)
+    static List<Transaction> generate(int count, int accountCount, double skew, double invalidRate, long seed) {
+        if (count < 0 || accountCount <= 0) {
+            throw new IllegalArgumentException("count must be >= 0 and accountCount > 0");
+        }
+        if (skew < 1.0 || invalidRate < 0.0 || invalidRate > 1.0) {
+            throw new IllegalArgumentException("skew must be >= 1.0 and invalidRate between 0.0 and 1.0");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Transaction> transactions = new ArrayList<>(count);
+        long timestamp = System.currentTimeMillis();
+
+        for (int i = 0; i < count; i++) {
+            char type = random.nextInt(3) == 0 ? 'W' : 'D';
+            int accountIndex = skew == 1.0
+                    ? random.nextInt(accountCount)
+                    : (int) (accountCount * Math.pow(random.nextDouble(), skew));
+            long accountId = FIRST_ACCOUNT_ID + accountIndex;
+            // cents -> BigDecimal with scale 2, exactly what isValidTransaction accepts
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong(1, 100_000_00L), 2);
+
+            if (invalidRate > 0.0 && random.nextDouble() < invalidRate) {
+                switch (random.nextInt(3)) {
+                    case 0 -> type = 'X';
+                    case 1 -> amount = amount.movePointLeft(1);
+                    default -> amount = amount.negate();
+                }
+            }
+            transactions.add(new Transaction(type, accountId, amount, timestamp + i, "synthetic"));
+        }
+        return transactions;
+    }
+}
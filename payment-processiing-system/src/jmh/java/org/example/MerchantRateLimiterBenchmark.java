@@ -0,0 +1,105 @@
+package org.example;
+
+import org.example.logging.NoOpLogSink;
+import org.example.ratelimit.MerchantLimit;
+import org.example.ratelimit.MerchantRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Cost of the per-merchant rate limiter, alone and on the checkout path. The default rate is
+// so high that nothing is rejected: what is measured is the lookup and the CAS, not a refusal.
+// Lower it (-p permitsPerSecond=1000) to measure the rejecting path.
+//
+//   java -jar target/benchmarks.jar MerchantRateLimiterBenchmark -t 4
+//   java -jar target/benchmarks.jar MerchantRateLimiterBenchmark.checkout -prof gc
+//
+// checkout vs checkoutWithLimiter is the overhead the limiter adds to one payment.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MerchantRateLimiterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Limiter {
+        @Param({"100000"})
+        public int merchants;
+
+        @Param({"1000000000"})
+        public double permitsPerSecond;
+
+        MerchantRateLimiter limiter;
+        CheckoutService checkout;
+        CheckoutService limitedCheckout;
+        String[] merchantIds;
+
+        @Setup
+        public void create() {
+            limiter = new MerchantRateLimiter(new MerchantLimit(permitsPerSecond, 100));
+            merchantIds = new String[merchants];
+            for (int i = 0; i < merchants; i++) {
+                merchantIds[i] = "merchant-" + i;
+                // every bucket exists before measuring, as in a steady state
+                limiter.tryAcquire(merchantIds[i]);
+            }
+            PaymentProcessor processor = new UpiPaymentProcessor(NoOpLogSink.INSTANCE);
+            checkout = new CheckoutService(processor);
+            limitedCheckout = CheckoutService.builder(processor).merchantLimiter(limiter).build();
+        }
+    }
+
+    // Pre-generated merchant order per thread, so the random source is not what is being measured.
+    @State(Scope.Thread)
+    public static class Caller {
+        private static final int CALLS = 1 << 16;
+
+        final int[] merchantIndex = new int[CALLS];
+        int next;
+
+        @Setup
+        public void generate(Limiter limiter) {
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+            for (int i = 0; i < CALLS; i++) {
+                merchantIndex[i] = random.nextInt(limiter.merchants);
+            }
+        }
+
+        String nextMerchant(Limiter limiter) {
+            return limiter.merchantIds[merchantIndex[next++ & (CALLS - 1)]];
+        }
+    }
+
+    @Benchmark
+    public boolean tryAcquire(Limiter limiter, Caller caller) {
+        return limiter.limiter.tryAcquire(caller.nextMerchant(limiter));
+    }
+
+    // every thread on the same merchant: all CAS on one bucket
+    @Benchmark
+    public boolean tryAcquireHotMerchant(Limiter limiter) {
+        return limiter.limiter.tryAcquire(limiter.merchantIds[0]);
+    }
+
+    @Benchmark
+    public void checkout(Limiter limiter) {
+        limiter.checkout.checkout(Money.ofMinor(2_500));
+    }
+
+    @Benchmark
+    public Object checkoutWithLimiter(Limiter limiter, Caller caller) {
+        return limiter.limitedCheckout.checkoutForMerchant(caller.nextMerchant(limiter), Money.ofMinor(2_500));
+    }
+}
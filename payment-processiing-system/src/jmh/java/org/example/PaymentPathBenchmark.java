@@ -0,0 +1,51 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// One payment, one checkout and one refund through the template methods of each processor.
+//
+// Throughput gives operations per microsecond; SampleTime the per-call latency distribution.
+// Add -prof gc for bytes allocated per operation, -t 4 to call one processor from 4 threads.
+//
+//   java -jar target/benchmarks.jar PaymentPathBenchmark -prof gc
+//   java -jar target/benchmarks.jar PaymentPathBenchmark.processPayment -p logSink=noop,asyncRing -p metrics=true
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentPathBenchmark {
+
+    // per benchmark thread, so threads do not share a counter
+    private int next;
+
+    @Benchmark
+    public void processPayment(PaymentWorkload workload) {
+        workload.target.processPayment(nextAmount(workload));
+    }
+
+    @Benchmark
+    public void checkout(PaymentWorkload workload) {
+        workload.checkout.checkout(nextAmount(workload));
+    }
+
+    @Benchmark
+    public void processRefund(PaymentWorkload workload) {
+        workload.target.processRefund(nextAmount(workload));
+    }
+
+    private Money nextAmount(PaymentWorkload workload) {
+        return workload.amounts[next++ & (PaymentWorkload.AMOUNTS - 1)];
+    }
+}
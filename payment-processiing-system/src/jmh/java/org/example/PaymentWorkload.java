@@ -0,0 +1,74 @@
+package org.example;
+
+import org.example.logging.AsyncRingBufferLogSink;
+import org.example.logging.LogSink;
+import org.example.logging.NoOpLogSink;
+import org.example.metrics.PaymentMetrics;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+
+// Processor under test plus pre-generated amounts, shared by the payment benchmarks. Every
+// knob is a JMH @Param, e.g. -p processor=creditCard,upi -p logSink=asyncRing -p metrics=true
+@State(Scope.Benchmark)
+public class PaymentWorkload {
+
+    static final int AMOUNTS = 1 << 12;
+
+    @Param({"upi", "creditCard", "debitCard", "payPal"})
+    public String processor;
+
+    // noop: logging off; asyncRing: lines go through AsyncRingBufferLogSink to a discarding stream
+    @Param({"noop"})
+    public String logSink;
+
+    @Param({"false"})
+    public boolean metrics;
+
+    AbstractRefundablePaymentProcessor target;
+    CheckoutService checkout;
+    final Money[] amounts = new Money[AMOUNTS];
+
+    private AsyncRingBufferLogSink asyncSink;
+
+    @Setup(Level.Trial)
+    public void create() {
+        LogSink sink = switch (logSink) {
+            case "noop" -> NoOpLogSink.INSTANCE;
+            case "asyncRing" -> asyncSink = new AsyncRingBufferLogSink(1 << 16, new PrintStream(OutputStream.nullOutputStream()));
+            default -> throw new IllegalArgumentException("Unknown logSink " + logSink);
+        };
+        ProcessorConfig config = ProcessorConfig.builder()
+                .logSink(sink)
+                .metrics(metrics ? new PaymentMetrics() : null)
+                .build();
+        target = switch (processor) {
+            case "upi" -> new UpiPaymentProcessor(config);
+            case "creditCard" -> new CreditCardProcessor("4111111111111111", config);
+            case "debitCard" -> new DebitCardProcesser("5500000000000004", config);
+            case "payPal" -> new PayPalProcessor("buyer@example.com", config);
+            default -> throw new IllegalArgumentException("Unknown processor " + processor);
+        };
+        checkout = new CheckoutService(target);
+
+        // mostly cached small amounts (up to 100.00), some larger ones that allocate
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < AMOUNTS; i++) {
+            amounts[i] = Money.ofMinor(random.nextInt(10) == 0 ? 10_000 + random.nextInt(1_000_000) : 1 + random.nextInt(10_000));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        if (asyncSink != null) {
+            asyncSink.close();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.external;
 
 import org.example.CreditCardProcessor;
+import org.example.Money;
 
 public class OutsideTest {
     public static void main(String[] args) {
@@ -9,5 +10,66 @@ public class OutsideTest {
         TraditionalPaymentService traditionalPaymentService = new TraditionalPaymentService();
         traditionalPaymentService.makePayment(traditionalPayment, 200.0);
 
+        // Every payment type goes through the dispatch table; each check throws if it fails.
+        // A card's first payment opens its account from the balance field.
+        check(traditionalPayment.isSuccessful && traditionalPayment.balance.equals(Money.ofMinor(80_000)),
+                "credit card payment is charged against the balance");
+
+        TraditionalPayment debit = new TraditionalPayment("5500000000000004", 50.0, "DEBIT_CARD");
+        traditionalPaymentService.makePayment(debit, 20.0);
+        check(debit.isSuccessful && debit.balance.equals(Money.ofMinor(3_000)), "debit card payment succeeds");
+        traditionalPaymentService.makePayment(debit, 40.0);
+        check(!debit.isSuccessful && debit.balance.equals(Money.ofMinor(3_000)), "debit card payment over the balance fails");
+
+        // a second payment object for an open card neither reopens it nor brings its own balance
+        TraditionalPayment sameCard = new TraditionalPayment("5500000000000004", 999.0, "DEBIT_CARD");
+        try {
+            traditionalPaymentService.openAccount(sameCard);
+            check(false, "an open card cannot be opened again");
+        } catch (IllegalStateException expected) {
+            traditionalPaymentService.makePayment(sameCard, 10.0);
+            check(sameCard.isSuccessful && sameCard.balance.equals(Money.ofMinor(2_000)),
+                    "a second payment object uses the card's account balance");
+        }
+        debit.balance = Money.ofMinor(1_000_000);
+        traditionalPaymentService.makePayment(debit, 25.0);
+        check(!debit.isSuccessful && debit.balance.equals(Money.ofMinor(2_000)),
+                "assigning the balance field does not change the account");
+
+        TraditionalPayment paypal = new TraditionalPayment("buyer@example.com", 0.0, "PAYPAL");
+        traditionalPaymentService.makePayment(paypal, 75.0);
+        check(paypal.isSuccessful, "PayPal payment succeeds (PayPal holds the balance, not the card)");
+
+        TraditionalPayment upi = new TraditionalPayment("buyer@upi", 0.0, "UPI");
+        traditionalPaymentService.makePayment(upi, 15.0);
+        check(upi.isSuccessful, "UPI payment succeeds");
+
+        TraditionalPayment invalidAmount = new TraditionalPayment("buyer@upi", 0.0, "UPI");
+        traditionalPaymentService.makePayment(invalidAmount, -5.0);
+        check(!invalidAmount.isSuccessful, "negative amount is refused by the processor");
+
+        TraditionalPayment negativeCardAmount = new TraditionalPayment("1234567890123456", 0.0, "CREDIT_CARD");
+        traditionalPaymentService.makePayment(negativeCardAmount, -5.0);
+        check(!negativeCardAmount.isSuccessful, "negative card amount fails like for the other types");
+
+        TraditionalPayment shortCardNumber = new TraditionalPayment("1234", 100.0, "CREDIT_CARD");
+        traditionalPaymentService.makePayment(shortCardNumber, 10.0);
+        check(!shortCardNumber.isSuccessful, "a card number that is not 8-19 digits is declined");
+
+        TraditionalPayment unknown = new TraditionalPayment("1234567890123456", 100.0, "CRYPTO");
+        try {
+            traditionalPaymentService.makePayment(unknown, 10.0);
+            check(false, "unknown payment type is rejected");
+        } catch (IllegalArgumentException expected) {
+            check(!unknown.isSuccessful, "unknown payment type is rejected");
+        }
+
+        System.out.println("OutsideTest: all payment types OK");
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new IllegalStateException("OutsideTest failed: " + description);
+        }
     }
 }
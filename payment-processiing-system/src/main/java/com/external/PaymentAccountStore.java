@@ -0,0 +1,165 @@
+package com.external;
+
+import org.example.Money;
+import org.example.tokenization.CardToken;
+
+import java.util.Currency;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ Thread-safe balances per card, replacing the public balance field of TraditionalPayment.
+ Cards are keyed by their CardToken, so no card number is kept here.
+
+ The old code did "if (balance >= amount) balance -= amount" on a plain field: two threads
+ could both pass the check and overdraw the card, or one subtraction could overwrite the
+ other (lost update).
+
+ Here a payment is two steps, like a card authorization and capture:
+ - tryReserve: moves the amount from available to held in one CAS on the card's
+   available balance; fails (returns null) instead of going negative
+ - commit: the held amount is spent (capture)
+ - release: the held amount goes back to available (authorization voided, gateway failed)
+ A Reservation can be committed or released exactly once.
+
+ Why CAS per card and no lock: every card has its own AtomicLong, so payments on
+ different cards never touch the same memory, and payments on the same card retry a
+ compare-and-set instead of blocking each other.
+
+ Invariant for every card at any quiet moment: available + held + spent == opening balance.
+ */
+public class PaymentAccountStore {
+
+    private final Map<CardToken, Account> accounts = new ConcurrentHashMap<>();
+
+    /*
+     Opens the card with the given balance, once. Opening it again throws
+     IllegalStateException instead of silently keeping the first balance, so two callers
+     cannot each believe their own opening balance is the one in force.
+     */
+    public void open(CardToken card, Money openingBalance) {
+        if (openingBalance.minorUnits() < 0) {
+            throw new IllegalArgumentException("Opening balance must not be negative");
+        }
+        if (accounts.putIfAbsent(card, new Account(openingBalance)) != null) {
+            throw new IllegalStateException("Card " + card.masked() + " is already open");
+        }
+    }
+
+    /*
+     Opens the card with the given balance unless it is already open; an open card keeps its
+     balance. For callers that open accounts on first use, where the first opening wins.
+     */
+    public void openIfAbsent(CardToken card, Money openingBalance) {
+        if (openingBalance.minorUnits() < 0) {
+            throw new IllegalArgumentException("Opening balance must not be negative");
+        }
+        if (!accounts.containsKey(card)) {
+            accounts.putIfAbsent(card, new Account(openingBalance));
+        }
+    }
+
+    // null when the card does not have enough available balance.
+    public Reservation tryReserve(CardToken card, Money amount) {
+        Account account = account(card);
+        if (!amount.isPositive()) {
+            throw new IllegalArgumentException("Amount must be greater than zero");
+        }
+        if (amount.currency() != account.currency) {
+            throw new IllegalArgumentException("Card " + card.masked() + " is in " + account.currency);
+        }
+        long minorUnits = amount.minorUnits();
+        long available;
+        do {
+            available = account.available.get();
+            if (available < minorUnits) {
+                return null;
+            }
+        } while (!account.available.compareAndSet(available, available - minorUnits));
+        return new Reservation(account, amount);
+    }
+
+    public void commit(Reservation reservation) {
+        reservation.finish(Reservation.COMMITTED);
+        reservation.account.spent.add(reservation.amount.minorUnits());
+    }
+
+    public void release(Reservation reservation) {
+        reservation.finish(Reservation.RELEASED);
+        reservation.account.available.addAndGet(reservation.amount.minorUnits());
+    }
+
+    public Money available(CardToken card) {
+        Account account = account(card);
+        return Money.of(account.available.get(), account.currency);
+    }
+
+    /*
+     Reserved but not yet committed or released. Not stored: it is what is missing from
+     opening balance - available - spent, so it only adds up while no payment is running.
+     */
+    public Money held(CardToken card) {
+        Account account = account(card);
+        return Money.of(account.openingBalance - account.available.get() - account.spent.sum(), account.currency);
+    }
+
+    public Money spent(CardToken card) {
+        Account account = account(card);
+        return Money.of(account.spent.sum(), account.currency);
+    }
+
+    private Account account(CardToken card) {
+        Account account = accounts.get(card);
+        if (account == null) {
+            throw new IllegalArgumentException("Unknown card " + card.masked());
+        }
+        return account;
+    }
+
+    private static final class Account {
+        private final Currency currency;
+        private final long openingBalance;
+        private final AtomicLong available;
+        // only added to, never checked against: LongAdder spreads the contention
+        private final LongAdder spent = new LongAdder();
+
+        private Account(Money openingBalance) {
+            this.currency = openingBalance.currency();
+            this.openingBalance = openingBalance.minorUnits();
+            this.available = new AtomicLong(this.openingBalance);
+        }
+    }
+
+    public static final class Reservation {
+        private static final int PENDING = 0;
+        private static final int COMMITTED = 1;
+        private static final int RELEASED = 2;
+
+        // field updater instead of an AtomicInteger: one object less per payment
+        private static final AtomicIntegerFieldUpdater<Reservation> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Reservation.class, "state");
+
+        private final Account account;
+        private final Money amount;
+        private volatile int state = PENDING;
+
+        private Reservation(Account account, Money amount) {
+            this.account = account;
+            this.amount = amount;
+        }
+
+        public Money amount() {
+            return amount;
+        }
+
+        private void finish(int outcome) {
+            if (!STATE.compareAndSet(this, PENDING, outcome)) {
+                throw new IllegalStateException("Reservation of " + amount + " was already "
+                        + (state == COMMITTED ? "committed" : "released"));
+            }
+        }
+    }
+}
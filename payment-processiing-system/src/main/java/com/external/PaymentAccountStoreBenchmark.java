@@ -0,0 +1,129 @@
+package com.external;
+
+import org.example.Money;
+import org.example.tokenization.CardToken;
+import org.example.tokenization.CardVault;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ Throughput of PaymentAccountStore (CAS per card) against the simplest safe alternative:
+ one lock around all balances. Each operation is reserve + commit of a small amount on a
+ random card (the baseline takes its lock once for each step, as the gateway call would
+ sit between them); every card is opened with enough balance that nothing is declined.
+
+ With one card both variants serialize on the same balance; with many cards the CAS store
+ lets threads work in parallel while the global lock still lets one thread in at a time.
+
+ Run: java -cp target/classes com.external.PaymentAccountStoreBenchmark [operationsPerThread]
+ */
+public class PaymentAccountStoreBenchmark {
+
+    private static final CardVault VAULT = new CardVault();
+
+    public static void main(String[] args) throws InterruptedException {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+
+        for (int round = 0; round < 2; round++) {
+            System.out.println(round == 0 ? "Warm-up" : "Measured");
+            for (int cards : new int[]{1, 10_000}) {
+                for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                    CardToken[] tokens = tokens(cards);
+                    long cas = run(new CasAccounts(tokens), tokens, threads, operations);
+                    long locked = run(new GloballySynchronizedAccounts(tokens), tokens, threads, operations);
+                    System.out.printf("  cards %6d  threads %2d  CAS store %,12d ops/s  global lock %,12d ops/s%n",
+                            cards, threads, cas, locked);
+                }
+            }
+        }
+    }
+
+    private static long run(Accounts accounts, CardToken[] cards, int threads, int operations)
+            throws InterruptedException {
+        List<Thread> workers = new ArrayList<>(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < operations; i++) {
+                    accounts.pay(cards[random.nextInt(cards.length)], 1 + random.nextInt(50));
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        return (long) threads * operations * 1_000_000_000L / elapsed;
+    }
+
+    // the same numbers map to the same tokens every round
+    private static CardToken[] tokens(int count) {
+        CardToken[] cards = new CardToken[count];
+        for (int i = 0; i < count; i++) {
+            cards[i] = VAULT.tokenize(String.format("4000%012d", i));
+        }
+        return cards;
+    }
+
+    private interface Accounts {
+        void pay(CardToken card, long minorUnits);
+    }
+
+    private static final class CasAccounts implements Accounts {
+        private final PaymentAccountStore store = new PaymentAccountStore();
+
+        private CasAccounts(CardToken[] cards) {
+            for (CardToken card : cards) {
+                store.open(card, Money.ofMinor(Long.MAX_VALUE / 2));
+            }
+        }
+
+        @Override
+        public void pay(CardToken card, long minorUnits) {
+            PaymentAccountStore.Reservation reservation = store.tryReserve(card, Money.ofMinor(minorUnits));
+            store.commit(reservation);
+        }
+    }
+
+    // Baseline: the legacy check-then-act made safe by one lock for every card.
+    private static final class GloballySynchronizedAccounts implements Accounts {
+        private final Map<CardToken, long[]> balances = new HashMap<>();
+
+        private GloballySynchronizedAccounts(CardToken[] cards) {
+            for (CardToken card : cards) {
+                balances.put(card, new long[]{Long.MAX_VALUE / 2, 0, 0});
+            }
+        }
+
+        @Override
+        public void pay(CardToken card, long minorUnits) {
+            if (reserve(card, minorUnits)) {
+                commit(card, minorUnits);
+            }
+        }
+
+        // balance[0] available, balance[1] held, balance[2] spent
+        private synchronized boolean reserve(CardToken card, long minorUnits) {
+            long[] balance = balances.get(card);
+            if (balance[0] < minorUnits) {
+                return false;
+            }
+            balance[0] -= minorUnits;
+            balance[1] += minorUnits;
+            return true;
+        }
+
+        private synchronized void commit(CardToken card, long minorUnits) {
+            long[] balance = balances.get(card);
+            balance[1] -= minorUnits;
+            balance[2] += minorUnits;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.external;
+
+import org.example.Money;
+import org.example.tokenization.CardToken;
+import org.example.tokenization.CardVault;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ Multi-threaded check of PaymentAccountStore (run like OutsideTest, from main).
+
+ 1. The old unsynchronized check-then-act on a plain balance field, for comparison:
+    threads lose updates, so more is paid than was ever deducted.
+ 2. The store: many threads reserve, then commit or release, on a few hot cards. Afterwards
+    every card must satisfy available + held + spent == opening balance, nothing may be
+    left held, spent must equal what the threads committed, and no balance may be negative.
+    Any violation throws IllegalStateException.
+
+ Run: java -cp target/classes com.external.PaymentAccountStoreStressTest [threads] [operationsPerThread]
+ */
+public class PaymentAccountStoreStressTest {
+
+    private static final long OPENING_BALANCE = 1_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        legacyCheckThenAct(threads, operations);
+        storeKeepsInvariants(threads, operations);
+    }
+
+    // the old TraditionalPayment: a plain balance field shared by every thread paying with the card
+    private static final class LegacyCard {
+        private long balance;
+    }
+
+    /*
+     The old "if (balance >= amount) balance -= amount" with a yield between reading and
+     writing the field, so threads really interleave there even on one CPU: payments that
+     read the same balance both succeed and one subtraction is lost.
+     */
+    private static void legacyCheckThenAct(int threads, int operations) throws InterruptedException {
+        LegacyCard card = new LegacyCard();
+        card.balance = OPENING_BALANCE;
+        LongAdder paid = new LongAdder();
+        int legacyOperations = Math.min(operations, 20_000);
+        runConcurrently(threads, () -> {
+            for (int i = 0; i < legacyOperations; i++) {
+                long balance = card.balance;
+                if (balance >= 7) {
+                    Thread.yield();
+                    card.balance = balance - 7;
+                    paid.add(7);
+                }
+            }
+        });
+        long balance = card.balance;
+        long lost = paid.sum() + balance - OPENING_BALANCE;
+        System.out.println("Legacy field:  paid " + paid.sum() + " + balance " + balance + " = "
+                + (paid.sum() + balance) + " (opening " + OPENING_BALANCE + "): " + lost + " paid without being deducted");
+    }
+
+    private static void storeKeepsInvariants(int threads, int operations) throws InterruptedException {
+        PaymentAccountStore store = new PaymentAccountStore();
+        CardVault vault = new CardVault();
+        CardToken[] cards = {vault.tokenize("4111111111111111"), vault.tokenize("5500000000000004"),
+                vault.tokenize("340000000000009")};
+        for (CardToken card : cards) {
+            store.open(card, Money.ofMinor(OPENING_BALANCE));
+        }
+        LongAdder[] committed = {new LongAdder(), new LongAdder(), new LongAdder()};
+        LongAdder declined = new LongAdder();
+
+        runConcurrently(threads, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < operations; i++) {
+                int card = random.nextInt(cards.length);
+                Money amount = Money.ofMinor(1 + random.nextInt(20));
+                PaymentAccountStore.Reservation reservation = store.tryReserve(cards[card], amount);
+                if (reservation == null) {
+                    declined.increment();
+                } else if (random.nextInt(10) < 8) {
+                    store.commit(reservation);
+                    committed[card].add(amount.minorUnits());
+                } else {
+                    store.release(reservation);
+                }
+            }
+        });
+
+        for (int c = 0; c < cards.length; c++) {
+            long available = store.available(cards[c]).minorUnits();
+            long held = store.held(cards[c]).minorUnits();
+            long spent = store.spent(cards[c]).minorUnits();
+            check(available >= 0, "negative balance " + available);
+            check(held == 0, "still held " + held);
+            check(spent == committed[c].sum(), "spent " + spent + " but committed " + committed[c].sum());
+            check(available + held + spent == OPENING_BALANCE, "available + held + spent = "
+                    + (available + held + spent) + ", opening " + OPENING_BALANCE);
+            System.out.println("Store card " + c + ": spent " + spent + " + available " + available
+                    + " = " + (spent + available) + " (opening " + OPENING_BALANCE + ")");
+        }
+        System.out.println("Store: OK, no lost updates (" + declined.sum() + " payments declined for insufficient balance)");
+    }
+
+    private static void runConcurrently(int threads, Runnable work) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().start(work));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("PaymentAccountStore invariant violated: " + message);
+        }
+    }
+}
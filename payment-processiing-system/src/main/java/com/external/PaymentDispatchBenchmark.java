@@ -0,0 +1,85 @@
+package com.external;
+
+import org.example.ProcessorConfig;
+import org.example.logging.NoOpLogSink;
+
+import java.util.Random;
+
+/*
+ Cost of choosing the handler for a payment type on a mixed workload (all four types in
+ random order, so the branch predictor cannot learn a fixed pattern). Both variants call
+ the same handlers; only the selection differs:
+ - String chain: the old if/else of String.equals calls (with the branches un-nested)
+ - dispatch table: the payment's cached PaymentType + array lookup, what
+   TraditionalPaymentService does (the String is parsed once per payment object)
+ Then the full makePayment per call with logging off, for scale.
+
+ Run: java -cp target/classes com.external.PaymentDispatchBenchmark [calls]
+ */
+public class PaymentDispatchBenchmark {
+
+    private static final String[] TYPE_NAMES = {"CREDIT_CARD", "DEBIT_CARD", "PAYPAL", "UPI"};
+
+    public static void main(String[] args) {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+
+        // distinct String instances, like values read from requests (no identity shortcut in equals)
+        String[] workload = new String[4096];
+        TraditionalPayment[] payments = new TraditionalPayment[workload.length];
+        Random random = new Random(42);
+        for (int i = 0; i < workload.length; i++) {
+            workload[i] = new String(TYPE_NAMES[random.nextInt(TYPE_NAMES.length)]);
+            payments[i] = new TraditionalPayment("4000000000000" + (i % 16), 1_000_000_000.0, workload[i]);
+        }
+        int[] counts = new int[TYPE_NAMES.length];
+        Runnable[] table = new Runnable[TYPE_NAMES.length];
+        for (int t = 0; t < table.length; t++) {
+            int type = t;
+            table[t] = () -> counts[type]++;
+        }
+
+        for (int round = 0; round < 2; round++) {
+            String label = round == 0 ? "warm-up" : "measured";
+
+            long start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                String type = payments[i & 4095].paymentType;
+                if (type.equals("CREDIT_CARD")) {
+                    table[0].run();
+                } else if (type.equals("DEBIT_CARD")) {
+                    table[1].run();
+                } else if (type.equals("PAYPAL")) {
+                    table[2].run();
+                } else if (type.equals("UPI")) {
+                    table[3].run();
+                }
+            }
+            long chainNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                table[payments[i & 4095].type().ordinal()].run();
+            }
+            long tableNanos = System.nanoTime() - start;
+
+            System.out.printf("%-8s String chain %5.2f ns/call | dispatch table %5.2f ns/call%n",
+                    label, (double) chainNanos / calls, (double) tableNanos / calls);
+        }
+
+        TraditionalPaymentService service = new TraditionalPaymentService(new PaymentAccountStore(),
+                ProcessorConfig.builder().logSink(NoOpLogSink.INSTANCE).build());
+        for (int card = 0; card < 16; card++) {
+            service.openAccount(new TraditionalPayment("4000000000000" + card, 1_000_000_000.0, "CREDIT_CARD"));
+        }
+        int paymentCalls = calls / 10;
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < paymentCalls; i++) {
+                service.makePayment(payments[i & 4095], 1.0);
+            }
+            System.out.printf("%-8s full makePayment %6.1f ns/call%n", round == 0 ? "warm-up" : "measured",
+                    (double) (System.nanoTime() - start) / paymentCalls);
+        }
+        System.out.println("(checksum " + (counts[0] + counts[1] + counts[2] + counts[3]) + ")");
+    }
+}
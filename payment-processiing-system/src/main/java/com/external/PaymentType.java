@@ -0,0 +1,32 @@
+package com.external;
+
+/*
+ The payment types TraditionalPayment.paymentType can hold. Parsing the String once into
+ an enum lets TraditionalPaymentService pick the handler with one array lookup instead of
+ a chain of String.equals calls. The String switch in from() compiles to a switch on the
+ String's (cached) hashCode followed by a single equals.
+ */
+public enum PaymentType {
+    CREDIT_CARD,
+    DEBIT_CARD,
+    PAYPAL,
+    UPI;
+
+    // Card payments are charged against a balance kept in PaymentAccountStore.
+    public boolean isCard() {
+        return this == CREDIT_CARD || this == DEBIT_CARD;
+    }
+
+    public static PaymentType from(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Unknown payment type: null");
+        }
+        return switch (name) {
+            case "CREDIT_CARD" -> CREDIT_CARD;
+            case "DEBIT_CARD" -> DEBIT_CARD;
+            case "PAYPAL" -> PAYPAL;
+            case "UPI" -> UPI;
+            default -> throw new IllegalArgumentException("Unknown payment type: " + name);
+        };
+    }
+}
@@ -1,17 +1,72 @@
 package com.external;
 
+import org.example.Money;
+import org.example.tokenization.CardToken;
+import org.example.tokenization.CardVault;
+
 public class TraditionalPayment {
 
     public String cardNumber;
-    public  double balance;
+    /*
+     Read-only for callers. For cards it is the opening balance until the card's first
+     payment (or TraditionalPaymentService.openAccount) has read it, and after that a copy
+     of the account's available balance, written back by the service after each payment. Assigning
+     it does not change the account; the balance lives in PaymentAccountStore.
+     */
+    public Money balance;
     public String paymentType;
     public boolean isSuccessful;
 
     public TraditionalPayment(String cardNumber, double balance, String paymentType) {
+        this(cardNumber, Money.fromDouble(balance), paymentType);
+    }
+
+    public TraditionalPayment(String cardNumber, Money balance, String paymentType) {
         this.cardNumber = cardNumber;
         this.balance = balance;
         this.paymentType = paymentType;
         this.isSuccessful = false;
     }
 
+    /*
+     paymentType parsed once into a PaymentType. The String field is public and could be
+     reassigned, so the cache remembers which String it parsed and parses again when the
+     field points to another one. The holder is immutable, so a racy read sees either the
+     old or the new pair, never a mix.
+     */
+    private ParsedType parsedType;
+
+    PaymentType type() {
+        ParsedType cached = parsedType;
+        String current = paymentType;
+        if (cached == null || cached.name != current) {
+            cached = new ParsedType(current, PaymentType.from(current));
+            parsedType = cached;
+        }
+        return cached.type;
+    }
+
+    private record ParsedType(String name, PaymentType type) {
+    }
+
+    /*
+     The card number tokenized once (card payments only), so the service and its account
+     store key on the token and never hold the number. Cached the same way as the type: the
+     public field could be reassigned, so the token is taken again when it points elsewhere.
+     */
+    private TokenizedCard tokenizedCard;
+
+    CardToken card() {
+        TokenizedCard cached = tokenizedCard;
+        String current = cardNumber;
+        if (cached == null || cached.number != current) {
+            cached = new TokenizedCard(current, CardVault.shared().tokenize(current));
+            tokenizedCard = cached;
+        }
+        return cached.token;
+    }
+
+    private record TokenizedCard(String number, CardToken token) {
+    }
+
 }
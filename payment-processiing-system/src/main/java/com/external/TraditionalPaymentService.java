@@ -1,22 +1,150 @@
 package com.external;
 
+import org.example.CreditCardProcessor;
+import org.example.DebitCardProcesser;
+import org.example.Money;
+import org.example.PayPalProcessor;
+import org.example.PaymentProcessor;
+import org.example.ProcessorConfig;
+import org.example.UpiPaymentProcessor;
+import org.example.logging.LogSink;
+import org.example.tokenization.CardToken;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+
 public class TraditionalPaymentService {
 
+    /*
+     Card balances live here and not in TraditionalPayment.balance: the store reserves and
+     commits atomically, so concurrent payments on one card cannot overdraw it.
+     TraditionalPayment.balance is read once, when the card's account is opened by its first
+     payment, and is only a copy after that, refreshed after each card payment.
+     */
+    private final PaymentAccountStore accountStore;
+    private final LogSink logSink;
 
-    public void makePayment(TraditionalPayment payment, double amount) {
-        if (payment.paymentType.equals("CREDIT_CARD") || payment.paymentType.equals("DEBIT_CARD")) {
-            if (payment.balance >= amount) {
-                payment.balance -= amount;
-                payment.isSuccessful = true;
-                System.out.println("Payment of $" + amount + " successful using " + payment.paymentType);
-            } else if (payment.paymentType.equals("PAYPAL")) {
-                payment.isSuccessful = true;
-                System.out.println("Payment of $" + amount + " successful using " + payment.paymentType);
-            } else if (payment.paymentType.equals("UPI")) {
-                payment.isSuccessful = false;
-                System.out.println("Payment of $" + amount + " failed using " + payment.paymentType);
+    /*
+     Dispatch table, built once: handlers[type.ordinal()] handles that PaymentType.
+     why: the old if/else chain compared Strings on every payment and had the PAYPAL and
+     UPI branches nested inside the card branch, where they could never match. Each type
+     now has exactly one handler, backed by the org.example processor for that type.
+     */
+    private final PaymentHandler[] handlers = new PaymentHandler[PaymentType.values().length];
+
+    public TraditionalPaymentService() {
+        this(new PaymentAccountStore(), ProcessorConfig.defaults());
+    }
+
+    public TraditionalPaymentService(PaymentAccountStore accountStore) {
+        this(accountStore, ProcessorConfig.defaults());
+    }
+
+    public TraditionalPaymentService(PaymentAccountStore accountStore, ProcessorConfig processorConfig) {
+        this.accountStore = accountStore;
+        this.logSink = processorConfig.logSink();
+
+        /*
+         Card and PayPal processors hold the card token / account, so one is created per
+         payment: a few fields, and nothing is kept per account (a map of processors by
+         account would grow with every card ever seen). UPI holds no account, so every UPI
+         payment shares one processor.
+         */
+        PaymentProcessor upi = new UpiPaymentProcessor(processorConfig);
+        Map<PaymentType, PaymentHandler> table = new EnumMap<>(PaymentType.class);
+        table.put(PaymentType.CREDIT_CARD, (payment, amount) ->
+                payWithCard(payment, amount, card -> new CreditCardProcessor(card, processorConfig)));
+        table.put(PaymentType.DEBIT_CARD, (payment, amount) ->
+                payWithCard(payment, amount, card -> new DebitCardProcesser(card, processorConfig)));
+        table.put(PaymentType.PAYPAL, (payment, amount) ->
+                payWithoutBalance(amount, new PayPalProcessor(payment.cardNumber, processorConfig)));
+        table.put(PaymentType.UPI, (payment, amount) -> payWithoutBalance(amount, upi));
+        for (PaymentType type : PaymentType.values()) {
+            if (!table.containsKey(type)) {
+                throw new IllegalStateException("No handler for payment type " + type);
             }
+            handlers[type.ordinal()] = table.get(type);
+        }
+    }
+
+    /*
+     Opens the card's account with payment.balance as the opening balance before its first
+     payment. Optional: makePayment opens an unknown card the same way. A card that is
+     already open throws IllegalStateException. PayPal and UPI hold the balance at the
+     provider, so they have no account here.
+     */
+    public void openAccount(TraditionalPayment payment) {
+        if (!payment.type().isCard()) {
+            throw new IllegalArgumentException("Only card payments have an account, not " + payment.paymentType);
+        }
+        accountStore.open(payment.card(), payment.balance);
+    }
 
+    public void makePayment(TraditionalPayment payment, double amount) {
+        makePayment(payment, Money.fromDouble(amount));
+    }
+
+    public void makePayment(TraditionalPayment payment, Money amount) {
+        PaymentType type = payment.type();
+        payment.isSuccessful = handlers[type.ordinal()].pay(payment, amount);
+        if (logSink.isEnabled()) {
+            logSink.log(payment.isSuccessful ? "Payment of {} successful using {}" : "Payment of {} failed using {}",
+                    amount, payment.paymentType);
+        }
+    }
+
+    /*
+     Cards: the first payment opens the account from payment.balance, then every payment
+     reserves the balance first and charges; a failed charge gives the reservation back.
+     The other types refuse an invalid amount in the processor's validate(); here the
+     reservation comes first, so the amount is checked before it, with the same outcome.
+     A card number that cannot be tokenized or an amount in another currency than the card
+     is declined too, as the old code never threw for a card payment.
+     */
+    private boolean payWithCard(TraditionalPayment payment, Money amount,
+                                Function<CardToken, PaymentProcessor> processorFor) {
+        if (amount == null || !amount.isPositive()) {
+            return false;
+        }
+        CardToken card;
+        PaymentAccountStore.Reservation reservation;
+        try {
+            card = payment.card();
+            accountStore.openIfAbsent(card, payment.balance);
+            reservation = accountStore.tryReserve(card, amount);
+        } catch (IllegalArgumentException e) {
+            return false;
         }
+        if (reservation == null) {
+            payment.balance = accountStore.available(card);
+            return false;
+        }
+        try {
+            processorFor.apply(card).processPayment(amount);
+        } catch (RuntimeException e) {
+            accountStore.release(reservation);
+            payment.balance = accountStore.available(card);
+            return false;
+        }
+        accountStore.commit(reservation);
+        payment.balance = accountStore.available(card);
+        return true;
+    }
+
+    // PayPal and UPI: the provider holds the balance, we only call it.
+    private static boolean payWithoutBalance(Money amount, PaymentProcessor processor) {
+        try {
+            processor.processPayment(amount);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    interface PaymentHandler {
+        // true when the payment went through
+        boolean pay(TraditionalPayment payment, Money amount);
     }
 }
@@ -1,28 +1,274 @@
 package org.example;
 
+import org.example.journal.PaymentJournal;
+import org.example.journal.RecordType;
+import org.example.logging.LogSink;
+import org.example.metrics.PaymentMetrics;
+import org.example.metrics.Stage;
+import org.example.metrics.StageMetrics;
+import org.example.resilience.GatewayTimeoutException;
+import org.example.resilience.ResiliencePolicy;
+
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+
 public abstract class AbstractPaymentProcessor implements PaymentProcessor {
 
+    /*
+     why the sink is injected: printing straight to System.out on every payment makes the
+     synchronized console the throughput limit. Subclasses log through this sink too, so
+     one constructor argument decides for the whole processor whether lines are printed
+     right away (ConsoleLogSink, the default), handed to a background thread
+     (AsyncRingBufferLogSink), sampled (SamplingLogSink) or skipped (NoOpLogSink).
+     */
+    protected final LogSink logSink;
+
+    /*
+     why the gateway call is guarded here and not in each processor: every subclass gets the
+     circuit breaker, bulkhead and timeout of its ResiliencePolicy around executePayment,
+     executeBatch and executeRefund without writing any code. null means unguarded.
+     */
+    protected final ResiliencePolicy resilience;
+
+    // null when the processor was built without PaymentMetrics: then nothing is timed
+    private final StageMetrics[] stageMetrics;
+
+    /*
+     null when nothing is journaled. With a journal every gateway call is bracketed by an
+     intent record (on disk before the call is made) and an outcome record, so after a crash
+     the payments that may have been charged without a recorded result are known
+     (RecoveryReport.inDoubt). The wait for the intent is part of the EXECUTE stage.
+     The intent is written only after the resilience policy has admitted the call, so an
+     open breaker or a full bulkhead rejects at once, without waiting for an fsync.
+     */
+    private final PaymentJournal journal;
+    private final String journalSource;
+
+    protected AbstractPaymentProcessor() {
+        this(ProcessorConfig.defaults());
+    }
+
+    protected AbstractPaymentProcessor(LogSink logSink) {
+        this(logSink, null);
+    }
+
+    protected AbstractPaymentProcessor(LogSink logSink, PaymentMetrics metrics) {
+        this(ProcessorConfig.builder().logSink(logSink).metrics(metrics).build());
+    }
+
+    protected AbstractPaymentProcessor(ProcessorConfig config) {
+        PaymentMetrics metrics = config.metrics();
+        this.logSink = config.logSink();
+        this.resilience = config.resilience();
+        this.stageMetrics = metrics == null ? null : metrics.forProcessor(getClass());
+        this.journal = config.journal();
+        this.journalSource = getClass().getSimpleName();
+    }
+
+    /*
+     With metrics every step is timed on its own (one System.nanoTime per step boundary),
+     so a slow payment shows whether validation, logging or the gateway call was slow.
+     A step that throws is recorded as a failure of that step.
+     */
     @Override
-    public void processPayment(double amount) {
-        validate(amount);
-        log(amount);
-        executePayment(amount);
+    public void processPayment(Money amount) {
+        if (stageMetrics == null) {
+            validate(amount);
+            log(amount);
+            executeGuarded(amount);
+            return;
+        }
+        Stage stage = Stage.VALIDATE;
+        long start = System.nanoTime();
+        try {
+            validate(amount);
+            start = recordSince(stage, start);
+            stage = Stage.LOG;
+            log(amount);
+            start = recordSince(stage, start);
+            stage = Stage.EXECUTE;
+            executeGuarded(amount);
+            recordSince(stage, start);
+        } catch (RuntimeException e) {
+            recordFailureSince(stage, start);
+            throw e;
+        }
     }
+
+    /*
+     Batch version of the same template: validate -> log -> execute, but each step runs once
+     for the whole batch instead of once per payment.
+     - validate: every amount is checked first; invalid ones become REJECTED results
+     - log: one line for the batch instead of one println per payment
+     - execute: the valid amounts go to executeBatch in one call
+     If executeBatch throws, every valid amount of the batch is reported as FAILED, or as
+     UNKNOWN when the call timed out (GatewayTimeoutException: it may have been charged).
+     A batch is charged in one currency: amounts in another currency than the first valid
+     one are REJECTED, and so is an amount that would overflow the batch total.
+     */
+    @Override
+    public List<PaymentResult> processBatch(Money[] amounts) {
+        PaymentResult[] results = new PaymentResult[amounts.length];
+        Money[] accepted = new Money[amounts.length];
+        int acceptedCount = 0;
+        Currency currency = null;
+        long totalMinorUnits = 0;
+
+        for (int i = 0; i < amounts.length; i++) {
+            try {
+                validate(amounts[i]);
+                if (currency == null) {
+                    currency = amounts[i].currency();
+                } else if (amounts[i].currency() != currency) {
+                    throw new IllegalArgumentException("Batch is in " + currency + ", amount is in " + amounts[i].currency());
+                }
+                long total = totalMinorUnits + amounts[i].minorUnits();
+                if (total < totalMinorUnits) {
+                    throw new IllegalArgumentException("Batch total would overflow");
+                }
+                totalMinorUnits = total;
+                accepted[acceptedCount++] = amounts[i];
+            } catch (IllegalArgumentException e) {
+                results[i] = PaymentResult.rejected(amounts[i], e.getMessage());
+            }
+        }
+
+        if (acceptedCount > 0) {
+            logBatch(acceptedCount, Money.of(totalMinorUnits, currency));
+            String failure = null;
+            boolean inDoubt = false;
+            Money[] batch = acceptedCount == amounts.length ? accepted : Arrays.copyOf(accepted, acceptedCount);
+            // filled in once the call is admitted; ids start at 1, so 0 means nothing was written
+            long[] paymentIds = journal == null ? null : new long[batch.length];
+            try {
+                // one wait for all intents of the batch instead of one per payment
+                Runnable logIntents = paymentIds == null ? null : () -> System.arraycopy(
+                        journal.logIntents(RecordType.PAYMENT_INTENT, journalSource, batch),
+                        0, paymentIds, 0, batch.length);
+                runGuarded(logIntents, () -> executeBatch(batch));
+            } catch (RuntimeException e) {
+                failure = String.valueOf(e.getMessage());
+                inDoubt = e instanceof GatewayTimeoutException;
+            }
+            // in doubt: no outcome, the intents stay open for recovery
+            if (paymentIds != null && paymentIds[0] != 0 && !inDoubt) {
+                RecordType outcome = failure == null ? RecordType.PAYMENT_COMPLETED : RecordType.PAYMENT_FAILED;
+                for (int i = 0; i < batch.length; i++) {
+                    journal.logOutcome(outcome, paymentIds[i], journalSource, batch[i]);
+                }
+            }
+            for (int i = 0; i < amounts.length; i++) {
+                if (results[i] == null) {
+                    if (failure == null) {
+                        results[i] = PaymentResult.success(amounts[i]);
+                    } else if (inDoubt) {
+                        results[i] = PaymentResult.unknown(amounts[i], failure);
+                    } else {
+                        results[i] = PaymentResult.failed(amounts[i], failure);
+                    }
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
     /*
      why protected abstract method so that only subclasses can implement it and it
      cannot be accessed from outside the package and it enforces subclasses to provide
      their own implementation abstract method for specific payment execution each subclass
      will have its own way of executing payment
      */
-    protected abstract void executePayment(double amount);
+    protected abstract void executePayment(Money amount);
+
+    /*
+     Executes already validated amounts in one step. The default falls back to one
+     executePayment per amount; processors override it to talk to their gateway once
+     per batch.
+     */
+    protected void executeBatch(Money[] amounts) {
+        for (Money amount : amounts) {
+            executePayment(amount);
+        }
+    }
+
+    private void executeGuarded(Money amount) {
+        if (resilience == null && journal == null) {
+            executePayment(amount);
+        } else {
+            executeJournaled(RecordType.PAYMENT_INTENT, amount, () -> executePayment(amount));
+        }
+    }
+
+    /*
+     Runs one gateway call under the resilience policy, bracketed by journal records when a
+     journal is configured: admitted -> intent (durable) -> call -> completed, or failed and
+     rethrow. A call the policy rejects leaves no record. A call that timed out
+     (GatewayTimeoutException) gets no outcome either: it may have been charged, so its intent
+     stays open and recovery reports it as in doubt until it is checked with the gateway.
+     */
+    protected final void executeJournaled(RecordType intent, Money amount, Runnable call) {
+        if (journal == null) {
+            runGuarded(null, call);
+            return;
+        }
+        // set once the call is admitted; ids start at 1, so 0 means nothing was written
+        long[] paymentId = new long[1];
+        try {
+            runGuarded(() -> paymentId[0] = journal.logIntent(intent, journalSource, amount), call);
+        } catch (GatewayTimeoutException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            if (paymentId[0] != 0) {
+                journal.logOutcome(intent.failed(), paymentId[0], journalSource, amount);
+            }
+            throw e;
+        }
+        journal.logOutcome(intent.completed(), paymentId[0], journalSource, amount);
+    }
+
+    // beforeCall (may be null) runs once the resilience policy has admitted the call
+    private void runGuarded(Runnable beforeCall, Runnable call) {
+        if (resilience == null) {
+            if (beforeCall != null) {
+                beforeCall.run();
+            }
+            call.run();
+        } else {
+            resilience.execute(beforeCall, call);
+        }
+    }
 
-    protected void validate(double amount){
-        if(amount <= 0){
+    protected void validate(Money amount){
+        if(amount == null || !amount.isPositive()){
             throw new IllegalArgumentException("Amount must be greater than zero");
         }
     }
 
-    protected void log(double amount){
-        System.out.println("Processing payment of $" + amount);
+    protected void log(Money amount){
+        if (logSink.isEnabled()) {
+            logSink.log("Processing payment of {}", amount);
+        }
+    }
+
+    protected final boolean hasMetrics() {
+        return stageMetrics != null;
+    }
+
+    // Records the time since start for the stage and returns now, the start of the next stage.
+    protected final long recordSince(Stage stage, long start) {
+        long now = System.nanoTime();
+        stageMetrics[stage.ordinal()].record(now - start);
+        return now;
+    }
+
+    protected final void recordFailureSince(Stage stage, long start) {
+        stageMetrics[stage.ordinal()].recordFailure(System.nanoTime() - start);
+    }
+
+    protected void logBatch(int count, Money total){
+        if (logSink.isEnabled()) {
+            logSink.log("Processing batch of {} payments totalling {}", count, total);
+        }
     }
 }
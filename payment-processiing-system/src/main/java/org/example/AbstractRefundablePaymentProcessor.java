@@ -0,0 +1,58 @@
+package org.example;
+
+import org.example.journal.RecordType;
+import org.example.logging.LogSink;
+import org.example.metrics.PaymentMetrics;
+import org.example.metrics.Stage;
+
+/*
+ Base class for processors that also support refunds.
+
+ why: every processor used to implement processRefund on its own, so refunds skipped
+ validation and could not be measured. processRefund is now a template like
+ processPayment: validate -> executeRefund, timed as Stage.REFUND when metrics are on.
+ Processors only implement executeRefund. Processors without refunds still extend
+ AbstractPaymentProcessor directly and do not get a processRefund method at all.
+ */
+public abstract class AbstractRefundablePaymentProcessor extends AbstractPaymentProcessor implements Refundable {
+
+    protected AbstractRefundablePaymentProcessor() {
+        this(ProcessorConfig.defaults());
+    }
+
+    protected AbstractRefundablePaymentProcessor(LogSink logSink) {
+        super(logSink);
+    }
+
+    protected AbstractRefundablePaymentProcessor(LogSink logSink, PaymentMetrics metrics) {
+        super(logSink, metrics);
+    }
+
+    protected AbstractRefundablePaymentProcessor(ProcessorConfig config) {
+        super(config);
+    }
+
+    @Override
+    public final void processRefund(Money amount) {
+        if (!hasMetrics()) {
+            validate(amount);
+            executeRefundGuarded(amount);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            validate(amount);
+            executeRefundGuarded(amount);
+            recordSince(Stage.REFUND, start);
+        } catch (RuntimeException e) {
+            recordFailureSince(Stage.REFUND, start);
+            throw e;
+        }
+    }
+
+    protected abstract void executeRefund(Money amount);
+
+    private void executeRefundGuarded(Money amount) {
+        executeJournaled(RecordType.REFUND_INTENT, amount, () -> executeRefund(amount));
+    }
+}
@@ -0,0 +1,46 @@
+package org.example;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/*
+ Puts many payments in flight at once against SimulatedLatencyGateway.
+
+ Run with a small heap to see that waiting payments are cheap:
+   java -Xmx64m -cp target/classes org.example.AsyncCheckoutDemo [payments] [latencyMillis] [maxConcurrent]
+ Defaults: 20000 payments, 500 ms latency, 20000 concurrent per processor type.
+
+ With blocking checkout this would take payments * latency (over two hours for the
+ defaults); here it takes roughly one latency period.
+ */
+public class AsyncCheckoutDemo {
+
+    public static void main(String[] args) {
+        int payments = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 500;
+        int maxConcurrent = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+
+        SimulatedLatencyGateway gateway = new SimulatedLatencyGateway(Duration.ofMillis(latencyMillis));
+        try (VirtualThreadPaymentExecutor executor = new VirtualThreadPaymentExecutor(maxConcurrent)) {
+            CheckoutService checkoutService = CheckoutService.builder(gateway).asyncExecutor(executor).build();
+
+            long start = System.nanoTime();
+            List<CompletableFuture<PaymentResult>> futures = new ArrayList<>(payments);
+            for (int i = 0; i < payments; i++) {
+                futures.add(checkoutService.checkoutAsync(10 + (i % 100)));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            long succeeded = futures.stream().filter(f -> f.join().isSuccess()).count();
+            Runtime runtime = Runtime.getRuntime();
+            System.out.println("Payments: " + payments + " | succeeded: " + succeeded
+                    + " | gateway latency: " + latencyMillis + " ms");
+            System.out.println("Elapsed: " + elapsedMillis + " ms | peak in flight: " + executor.peakInFlight());
+            System.out.println("Heap used: " + (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024)
+                    + " MB of max " + runtime.maxMemory() / (1024 * 1024) + " MB");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import org.example.logging.NoOpLogSink;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/*
+ Checks for CheckoutService.checkoutAsync / VirtualThreadPaymentExecutor, in the style of
+ OutsideTest: every check throws when it fails.
+ - 2,000 payments against a 100 ms gateway finish in far less than 2,000 * 100 ms
+ - the per-processor-type limit is never exceeded
+ - invalid amounts come back REJECTED and gateway errors FAILED, never as a failed future
+
+ Run: java -cp target/classes org.example.AsyncCheckoutTest
+ */
+public class AsyncCheckoutTest {
+
+    public static void main(String[] args) {
+        SimulatedLatencyGateway gateway = new SimulatedLatencyGateway(Duration.ofMillis(100));
+        try (VirtualThreadPaymentExecutor executor = new VirtualThreadPaymentExecutor(2_000)) {
+            CheckoutService checkout = CheckoutService.builder(gateway).asyncExecutor(executor).build();
+            long start = System.nanoTime();
+            List<CompletableFuture<PaymentResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                futures.add(checkout.checkoutAsync(Money.ofMinor(1_000)));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            check(futures.stream().allMatch(f -> f.join().isSuccess()), "all async payments succeed");
+            check(elapsedMillis < 10_000, "2,000 payments of 100 ms run concurrently (took " + elapsedMillis + " ms)");
+        }
+
+        try (VirtualThreadPaymentExecutor executor = new VirtualThreadPaymentExecutor(5)) {
+            CheckoutService checkout = CheckoutService.builder(new SimulatedLatencyGateway(Duration.ofMillis(5)))
+                    .asyncExecutor(executor)
+                    .build();
+            List<CompletableFuture<PaymentResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(checkout.checkoutAsync(Money.ofMinor(1_000)));
+            }
+            futures.forEach(CompletableFuture::join);
+            check(executor.peakInFlight() <= 5, "limit per processor type holds (peak " + executor.peakInFlight() + ")");
+        }
+
+        FaultInjectingGateway failing = new FaultInjectingGateway(Duration.ZERO,
+                ProcessorConfig.builder().logSink(NoOpLogSink.INSTANCE).build());
+        failing.setFault(FaultInjectingGateway.Fault.FAIL);
+        try (VirtualThreadPaymentExecutor executor = new VirtualThreadPaymentExecutor(10)) {
+            CheckoutService healthyCheckout = CheckoutService.builder(gateway).asyncExecutor(executor).build();
+            CheckoutService failingCheckout = CheckoutService.builder(failing).asyncExecutor(executor).build();
+            check(healthyCheckout.checkoutAsync(Money.ofMinor(-100)).join().status()
+                    == PaymentResult.Status.REJECTED, "invalid amount is REJECTED");
+            check(failingCheckout.checkoutAsync(Money.ofMinor(100)).join().status()
+                    == PaymentResult.Status.FAILED, "gateway error is FAILED");
+        }
+
+        System.out.println("AsyncCheckoutTest: all checks OK");
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new IllegalStateException("AsyncCheckoutTest failed: " + description);
+        }
+    }
+}
@@ -1,5 +1,14 @@
 package org.example;
 
+import org.example.ratelimit.FairPaymentScheduler;
+import org.example.ratelimit.MerchantRateLimiter;
+import org.example.reconciliation.ReconciliationIndex;
+import org.example.reconciliation.RefundDecision;
+import org.example.resilience.GatewayTimeoutException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public class CheckoutService {
 
     //why data should be private final PaymentProcessor paymentProcessor;
@@ -7,12 +16,253 @@ public class CheckoutService {
     //Declaring it as final guarantees that the reference cannot be changed after initialization, promoting immutability and thread safety.
     //Together, these practices enhance the robustness and maintainability of the code.
     private final PaymentProcessor paymentProcessor;
+    // optional: only needed for checkoutAsync
+    private final VirtualThreadPaymentExecutor asyncExecutor;
+    // optional: only needed for the calls that take an idempotency key
+    private final IdempotencyCache idempotencyCache;
+    // optional: only needed for capture / refund by payment id
+    private final ReconciliationIndex reconciliation;
+    // optional: only used by checkoutForMerchant; either one may be null
+    private final MerchantRateLimiter merchantLimiter;
+    private final FairPaymentScheduler merchantScheduler;
 
     public CheckoutService(PaymentProcessor paymentProcessor) {
-        this.paymentProcessor = paymentProcessor;
+        this(builder(paymentProcessor));
     }
 
-    public void checkout(double amount) {
+    private CheckoutService(Builder builder) {
+        this.paymentProcessor = builder.paymentProcessor;
+        this.asyncExecutor = builder.asyncExecutor;
+        this.idempotencyCache = builder.idempotencyCache;
+        this.reconciliation = builder.reconciliation;
+        this.merchantLimiter = builder.merchantLimiter;
+        this.merchantScheduler = builder.merchantScheduler;
+    }
+
+    /*
+     The optional collaborators go through a builder, like ProcessorConfig, so any
+     combination can be set without a constructor for each one:
+
+     CheckoutService.builder(processor)
+             .asyncExecutor(executor)
+             .idempotencyCache(cache)
+             .reconciliation(index)
+             .merchantLimiter(limiter)
+             .merchantScheduler(scheduler)
+             .build();
+     */
+    public static Builder builder(PaymentProcessor paymentProcessor) {
+        return new Builder(paymentProcessor);
+    }
+
+    public void checkout(Money amount) {
+        paymentProcessor.processPayment(amount);
+    }
+
+    /*
+     Safe to retry: a second call with the same key does not charge again, it returns the
+     result of the first call (or waits for it if the first call is still running).
+     */
+    public PaymentResult checkout(String idempotencyKey, Money amount) {
+        return requireIdempotencyCache().execute(IdempotencyCache.Operation.PAYMENT, idempotencyKey, amount,
+                () -> pay(amount));
+    }
+
+    // Same retry safety for refunds; refund keys are separate from payment keys.
+    public PaymentResult refund(String idempotencyKey, Money amount) {
+        Refundable refundable = requireRefundable();
+        return requireIdempotencyCache().execute(IdempotencyCache.Operation.REFUND, idempotencyKey, amount,
+                () -> refund(refundable, amount));
+    }
+
+    /*
+     Like checkout, but records the payment in the ReconciliationIndex and returns its id,
+     which refund(paymentId, amount) needs. Throws like checkout when the payment fails.
+     */
+    public long capture(Money amount) {
+        ReconciliationIndex index = requireReconciliation();
         paymentProcessor.processPayment(amount);
+        return index.recordCapture(paymentProcessor.getClass().getSimpleName(), amount);
+    }
+
+    /*
+     Refund linked to the payment it reverses: REJECTED without calling the gateway when the
+     payment is unknown, in another currency, or would be refunded beyond what was captured
+     (counting refunds running at the same time). The amount is reserved before the gateway
+     call and given back only when the refund definitely did not happen (REJECTED or FAILED).
+     An UNKNOWN result (the call timed out) keeps the reservation: the gateway may have
+     refunded, and giving it back would allow the same amount to be refunded twice.
+     */
+    public PaymentResult refund(long paymentId, Money amount) {
+        Refundable refundable = requireRefundable();
+        ReconciliationIndex index = requireReconciliation();
+        RefundDecision decision;
+        try {
+            decision = index.reserveRefund(paymentId, amount);
+        } catch (IllegalArgumentException e) {
+            return PaymentResult.rejected(amount, e.getMessage());
+        }
+        if (!decision.isAccepted()) {
+            return PaymentResult.rejected(amount, decision + " for payment " + paymentId);
+        }
+        PaymentResult result = refund(refundable, amount);
+        if (result.status() == PaymentResult.Status.REJECTED || result.status() == PaymentResult.Status.FAILED) {
+            index.releaseRefund(paymentId, amount);
+        }
+        return result;
+    }
+
+    /*
+     Checkout on behalf of a merchant: REJECTED right away when the merchant is over its rate
+     limit, otherwise queued fairly against the other merchants' payments (or run right away
+     when there is no scheduler). The future completes with the result. A payment the
+     scheduler turns away (full queue, closed) gives its rate limit permit back, so it is not
+     throttled twice.
+     */
+    public CompletableFuture<PaymentResult> checkoutForMerchant(String merchantId, Money amount) {
+        if (merchantLimiter != null && !merchantLimiter.tryAcquire(merchantId)) {
+            return CompletableFuture.completedFuture(PaymentResult.rejected(amount, "Rate limit exceeded for merchant " + merchantId));
+        }
+        if (merchantScheduler == null) {
+            return CompletableFuture.completedFuture(pay(amount));
+        }
+        return merchantScheduler.submit(merchantId, amount, () -> pay(amount),
+                merchantLimiter == null ? null : () -> merchantLimiter.release(merchantId));
+    }
+
+    // Does not block: the payment runs on a virtual thread and the future completes with its result.
+    public CompletableFuture<PaymentResult> checkoutAsync(Money amount) {
+        if (asyncExecutor == null) {
+            throw new IllegalStateException("checkoutAsync needs a VirtualThreadPaymentExecutor; set one on the builder");
+        }
+        return asyncExecutor.submit(paymentProcessor, amount);
+    }
+
+    // One result per amount, same order; invalid or failed items do not throw.
+    public List<PaymentResult> checkoutBatch(Money[] amounts) {
+        return paymentProcessor.processBatch(amounts);
+    }
+
+    // double bridges for existing callers; amounts are rounded to the nearest cent
+    public void checkout(double amount) {
+        checkout(Money.fromDouble(amount));
+    }
+
+    public PaymentResult checkout(String idempotencyKey, double amount) {
+        return checkout(idempotencyKey, Money.fromDouble(amount));
+    }
+
+    public PaymentResult refund(String idempotencyKey, double amount) {
+        return refund(idempotencyKey, Money.fromDouble(amount));
+    }
+
+    public long capture(double amount) {
+        return capture(Money.fromDouble(amount));
+    }
+
+    public PaymentResult refund(long paymentId, double amount) {
+        return refund(paymentId, Money.fromDouble(amount));
+    }
+
+    public CompletableFuture<PaymentResult> checkoutForMerchant(String merchantId, double amount) {
+        return checkoutForMerchant(merchantId, Money.fromDouble(amount));
+    }
+
+    public CompletableFuture<PaymentResult> checkoutAsync(double amount) {
+        return checkoutAsync(Money.fromDouble(amount));
+    }
+
+    public List<PaymentResult> checkoutBatch(double[] amounts) {
+        return paymentProcessor.processBatch(amounts);
+    }
+
+    private Refundable requireRefundable() {
+        if (!(paymentProcessor instanceof Refundable refundable)) {
+            throw new IllegalStateException(paymentProcessor.getClass().getSimpleName() + " does not support refunds");
+        }
+        return refundable;
+    }
+
+    private ReconciliationIndex requireReconciliation() {
+        if (reconciliation == null) {
+            throw new IllegalStateException("Refunds by payment id need a ReconciliationIndex; set one on the builder");
+        }
+        return reconciliation;
+    }
+
+    private IdempotencyCache requireIdempotencyCache() {
+        if (idempotencyCache == null) {
+            throw new IllegalStateException("Idempotent checkout needs an IdempotencyCache; set one on the builder");
+        }
+        return idempotencyCache;
+    }
+
+    private PaymentResult pay(Money amount) {
+        try {
+            paymentProcessor.processPayment(amount);
+            return PaymentResult.success(amount);
+        } catch (IllegalArgumentException e) {
+            return PaymentResult.rejected(amount, e.getMessage());
+        } catch (GatewayTimeoutException e) {
+            return PaymentResult.unknown(amount, e.getMessage());
+        } catch (RuntimeException e) {
+            return PaymentResult.failed(amount, e.getMessage());
+        }
+    }
+
+    private static PaymentResult refund(Refundable refundable, Money amount) {
+        try {
+            refundable.processRefund(amount);
+            return PaymentResult.success(amount);
+        } catch (IllegalArgumentException e) {
+            return PaymentResult.rejected(amount, e.getMessage());
+        } catch (GatewayTimeoutException e) {
+            return PaymentResult.unknown(amount, e.getMessage());
+        } catch (RuntimeException e) {
+            return PaymentResult.failed(amount, e.getMessage());
+        }
+    }
+
+    public static class Builder {
+
+        private final PaymentProcessor paymentProcessor;
+        private VirtualThreadPaymentExecutor asyncExecutor;
+        private IdempotencyCache idempotencyCache;
+        private ReconciliationIndex reconciliation;
+        private MerchantRateLimiter merchantLimiter;
+        private FairPaymentScheduler merchantScheduler;
+
+        private Builder(PaymentProcessor paymentProcessor) {
+            this.paymentProcessor = paymentProcessor;
+        }
+
+        public Builder asyncExecutor(VirtualThreadPaymentExecutor asyncExecutor) {
+            this.asyncExecutor = asyncExecutor;
+            return this;
+        }
+
+        public Builder idempotencyCache(IdempotencyCache idempotencyCache) {
+            this.idempotencyCache = idempotencyCache;
+            return this;
+        }
+
+        public Builder reconciliation(ReconciliationIndex reconciliation) {
+            this.reconciliation = reconciliation;
+            return this;
+        }
+
+        public Builder merchantLimiter(MerchantRateLimiter merchantLimiter) {
+            this.merchantLimiter = merchantLimiter;
+            return this;
+        }
+
+        public Builder merchantScheduler(FairPaymentScheduler merchantScheduler) {
+            this.merchantScheduler = merchantScheduler;
+            return this;
+        }
+
+        public CheckoutService build() {
+            return new CheckoutService(this);
+        }
     }
 }
@@ -1,20 +1,67 @@
 package org.example;
 
-public class CreditCardProcessor extends AbstractPaymentProcessor implements Refundable {
+import org.example.logging.LogSink;
+import org.example.metrics.PaymentMetrics;
+import org.example.tokenization.CardToken;
+import org.example.tokenization.CardVault;
 
-    private String cardNumber;
+public class CreditCardProcessor extends AbstractRefundablePaymentProcessor {
+
+    /*
+     why a token and not the card number: the number stays in the CardVault (off-heap), the
+     processor only keeps the token with its precomputed masked form for logging.
+     */
+    private final CardToken card;
 
     public CreditCardProcessor(String cardNumber) {
-        this.cardNumber = cardNumber;
+        this(CardVault.shared().tokenize(cardNumber), ProcessorConfig.defaults());
+    }
+
+    public CreditCardProcessor(String cardNumber, LogSink logSink) {
+        this(CardVault.shared().tokenize(cardNumber), ProcessorConfig.builder().logSink(logSink).build());
+    }
+
+    public CreditCardProcessor(String cardNumber, LogSink logSink, PaymentMetrics metrics) {
+        this(CardVault.shared().tokenize(cardNumber), ProcessorConfig.builder().logSink(logSink).metrics(metrics).build());
+    }
+
+    public CreditCardProcessor(String cardNumber, ProcessorConfig config) {
+        this(CardVault.shared().tokenize(cardNumber), config);
+    }
+
+    public CreditCardProcessor(CardToken card) {
+        this(card, ProcessorConfig.defaults());
+    }
+
+    public CreditCardProcessor(CardToken card, ProcessorConfig config) {
+        super(config);
+        this.card = card;
+    }
+
+    public CardToken card() {
+        return card;
     }
 
    @Override
-    protected void executePayment(double amount) {
-       String maskedCard = "****" + cardNumber.substring(cardNumber.length() - 4);
-       System.out.println("Charging " + maskedCard + " for $" + amount);   }
+    protected void executePayment(Money amount) {
+       if (logSink.isEnabled()) {
+           logSink.log("Charging {} to {}", amount, card.masked());
+       }
+   }
+
+    // One authorization call for the whole batch.
+    @Override
+    protected void executeBatch(Money[] amounts) {
+        Money total = Money.sum(amounts, amounts[0].currency());
+        if (logSink.isEnabled()) {
+            logSink.log("Charging {} payments totalling {} to {}", amounts.length, total, card.masked());
+        }
+    }
 
     @Override
-    public void processRefund(double amount) {
-        System.out.println("Processing card refund of $" + amount);
+    protected void executeRefund(Money amount) {
+        if (logSink.isEnabled()) {
+            logSink.log("Processing card refund of {}", amount);
+        }
     }
 }
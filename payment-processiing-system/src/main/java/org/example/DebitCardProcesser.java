@@ -1,20 +1,66 @@
 package org.example;
 
-public class DebitCardProcesser extends AbstractPaymentProcessor implements Refundable {
+import org.example.logging.LogSink;
+import org.example.metrics.PaymentMetrics;
+import org.example.tokenization.CardToken;
+import org.example.tokenization.CardVault;
 
-    private String cardNumber;
+public class DebitCardProcesser extends AbstractRefundablePaymentProcessor {
+
+    /*
+     why a token and not the card number: the number stays in the CardVault (off-heap), the
+     processor only keeps the token with its precomputed masked form for logging.
+     */
+    private final CardToken card;
 
     public DebitCardProcesser(String cardNumber) {
-        this.cardNumber = cardNumber;
+        this(CardVault.shared().tokenize(cardNumber), ProcessorConfig.defaults());
+    }
+
+    public DebitCardProcesser(String cardNumber, LogSink logSink) {
+        this(CardVault.shared().tokenize(cardNumber), ProcessorConfig.builder().logSink(logSink).build());
+    }
+
+    public DebitCardProcesser(String cardNumber, LogSink logSink, PaymentMetrics metrics) {
+        this(CardVault.shared().tokenize(cardNumber), ProcessorConfig.builder().logSink(logSink).metrics(metrics).build());
+    }
+
+    public DebitCardProcesser(String cardNumber, ProcessorConfig config) {
+        this(CardVault.shared().tokenize(cardNumber), config);
+    }
+
+    public DebitCardProcesser(CardToken card) {
+        this(card, ProcessorConfig.defaults());
+    }
+
+    public DebitCardProcesser(CardToken card, ProcessorConfig config) {
+        super(config);
+        this.card = card;
+    }
+
+    public CardToken card() {
+        return card;
+    }
+
+    @Override
+    protected void executePayment(Money amount) {
+        if (logSink.isEnabled()) {
+            logSink.log("Processing Debit Card payment of {} for card: {}", amount, card.masked());
+        }
     }
 
     @Override
-    protected void executePayment(double amount) {
-        System.out.println("Processing Debit Card payment of $" + amount + " for card: " + cardNumber);
+    protected void executeBatch(Money[] amounts) {
+        Money total = Money.sum(amounts, amounts[0].currency());
+        if (logSink.isEnabled()) {
+            logSink.log("Processing Debit Card batch of {} payments totalling {} for card: {}", amounts.length, total, card.masked());
+        }
     }
 
     @Override
-    public void processRefund(double amount) {
-        System.out.println("Processing Debit Card refund of $" + amount + " for card: " + cardNumber);
+    protected void executeRefund(Money amount) {
+        if (logSink.isEnabled()) {
+            logSink.log("Processing Debit Card refund of {} for card: {}", amount, card.masked());
+        }
     }
 }
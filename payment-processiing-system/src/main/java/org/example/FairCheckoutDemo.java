@@ -0,0 +1,90 @@
+package org.example;
+
+import org.example.metrics.LatencyHistogram;
+import org.example.ratelimit.FairPaymentScheduler;
+import org.example.ratelimit.MerchantLimit;
+import org.example.ratelimit.MerchantRateLimiter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ One noisy merchant queues 20,000 payments at once while 20 quiet merchants pay every few
+ milliseconds. The gateway (2 ms per payment) can run 16 payments at a time.
+ Printed per run: latency of the quiet merchants' payments and what happened to the noisy
+ merchant's payments.
+ 1. one FIFO queue for everybody: quiet merchants wait behind the whole backlog
+ 2. fair queuing per merchant: quiet merchants get their turn every round
+ 3. fair queuing plus a rate limit on the noisy merchant (500/s, burst 200): most of its
+    backlog is refused up front instead of queuing
+
+ Run: java -cp target/classes org.example.FairCheckoutDemo
+ */
+public class FairCheckoutDemo {
+
+    private static final int NOISY_PAYMENTS = 20_000;
+    private static final int QUIET_MERCHANTS = 20;
+    private static final int QUIET_PAYMENTS_EACH = 50;
+
+    public static void main(String[] args) throws InterruptedException {
+        run("single FIFO queue", false, false);
+        run("fair queuing", true, false);
+        run("fair queuing + rate limit", true, true);
+    }
+
+    private static void run(String name, boolean fair, boolean limited) throws InterruptedException {
+        SimulatedLatencyGateway gateway = new SimulatedLatencyGateway(Duration.ofMillis(2));
+        MerchantRateLimiter limiter = null;
+        if (limited) {
+            // quiet merchants stay far below the default limit
+            limiter = new MerchantRateLimiter(new MerchantLimit(1_000, 100));
+            limiter.setLimit("noisy", new MerchantLimit(500, 200));
+        }
+        LatencyHistogram quietLatency = new LatencyHistogram();
+        LongAdder noisyOk = new LongAdder();
+        LongAdder noisyRejected = new LongAdder();
+
+        long start = System.nanoTime();
+        try (FairPaymentScheduler scheduler = new FairPaymentScheduler(16, NOISY_PAYMENTS + QUIET_MERCHANTS * QUIET_PAYMENTS_EACH)) {
+            CheckoutService checkout = CheckoutService.builder(gateway)
+                    .merchantLimiter(limiter)
+                    .merchantScheduler(scheduler)
+                    .build();
+            List<CompletableFuture<PaymentResult>> noisy = new ArrayList<>(NOISY_PAYMENTS);
+            for (int i = 0; i < NOISY_PAYMENTS; i++) {
+                // without fairness everybody shares one queue
+                noisy.add(checkout.checkoutForMerchant(fair ? "noisy" : "everyone", Money.ofMinor(1_000)));
+            }
+
+            List<Thread> quiet = new ArrayList<>();
+            for (int m = 0; m < QUIET_MERCHANTS; m++) {
+                String merchant = fair ? "quiet-" + m : "everyone";
+                quiet.add(Thread.ofVirtual().start(() -> {
+                    for (int i = 0; i < QUIET_PAYMENTS_EACH; i++) {
+                        long sent = System.nanoTime();
+                        checkout.checkoutForMerchant(merchant, Money.ofMinor(2_500)).join();
+                        quietLatency.record(System.nanoTime() - sent);
+                        try {
+                            Thread.sleep(5);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }));
+            }
+            for (Thread thread : quiet) {
+                thread.join();
+            }
+            for (CompletableFuture<PaymentResult> future : noisy) {
+                (future.join().isSuccess() ? noisyOk : noisyRejected).increment();
+            }
+        }
+        LatencyHistogram.Snapshot s = quietLatency.snapshot();
+        System.out.printf("%-27s quiet merchants p50 %7.1f ms  p99 %7.1f ms | noisy: %,6d paid, %,6d rejected | %.1f s%n",
+                name, s.p50Nanos() / 1e6, s.p99Nanos() / 1e6, noisyOk.sum(), noisyRejected.sum(),
+                (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,69 @@
+package org.example;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ Simulated gateway whose behaviour can be switched while it runs, to check that the rest
+ of checkout survives a broken processor:
+ - NONE: answers after the normal latency
+ - FAIL: throws right away (gateway returns errors)
+ - HANG: does not answer until the fault is cleared or the calling thread is interrupted
+   (what a timeout does)
+ */
+public class FaultInjectingGateway extends AbstractRefundablePaymentProcessor {
+
+    public enum Fault {
+        NONE,
+        FAIL,
+        HANG
+    }
+
+    private static final long HANG_CHECK_MILLIS = 10;
+
+    private final Duration latency;
+    private final LongAdder completed = new LongAdder();
+    private volatile Fault fault = Fault.NONE;
+
+    public FaultInjectingGateway(Duration latency, ProcessorConfig config) {
+        super(config);
+        this.latency = latency;
+    }
+
+    public void setFault(Fault fault) {
+        this.fault = fault;
+    }
+
+    @Override
+    protected void executePayment(Money amount) {
+        callGateway();
+    }
+
+    @Override
+    protected void executeRefund(Money amount) {
+        callGateway();
+    }
+
+    // Payments and refunds that got through.
+    public long completedCount() {
+        return completed.sum();
+    }
+
+    private void callGateway() {
+        try {
+            switch (fault) {
+                case FAIL -> throw new IllegalStateException("Injected gateway failure");
+                case HANG -> {
+                    while (fault == Fault.HANG) {
+                        Thread.sleep(HANG_CHECK_MILLIS);
+                    }
+                }
+                case NONE -> Thread.sleep(latency);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Gateway call interrupted", e);
+        }
+        completed.increment();
+    }
+}
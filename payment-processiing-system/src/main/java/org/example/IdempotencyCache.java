@@ -0,0 +1,156 @@
+package org.example;
+
+import org.example.resilience.GatewayTimeoutException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+ Remembers the result of each payment/refund by the client's idempotency key, so a retry
+ gets the first result back instead of charging again.
+
+ How duplicates are handled:
+ - the first request for a key puts an entry holding a CompletableFuture into the map
+   (atomically, via compute) and runs the operation
+ - a duplicate arriving while that is still running finds the entry and waits on the same
+   future, so concurrent retries coalesce onto one execution
+ - a duplicate arriving later gets the completed future's result: a map lookup and no
+   locking, cheap enough for the checkout hot path
+ - a key reused with a different amount is REJECTED, that is a client bug, not a retry
+ - FAILED results are not kept: the gateway call did not go through, so a retry may run it
+ - UNKNOWN results (the gateway call timed out, GatewayTimeoutException) are kept like
+   successes: the charge may have gone through, so a retry gets UNKNOWN back instead of
+   charging a second time
+ - an Error thrown by the operation is not kept either; duplicates waiting on it get it
+   rethrown (wrapped in a CompletionException) and the next retry runs the operation again
+
+ Bounds: completed entries expire after ttl, and when more than maxEntries are kept the
+ oldest completed ones are evicted first. Running entries are never evicted (otherwise a
+ duplicate could start a second execution).
+ */
+public class IdempotencyCache {
+
+    public enum Operation {
+        PAYMENT,
+        REFUND
+    }
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    // completed entries, oldest first
+    private final Queue<Entry> completionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger completedCount = new AtomicInteger();
+
+    public IdempotencyCache(Duration ttl, int maxEntries) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be greater than zero");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    /*
+     Runs operation once per (operation, idempotencyKey) while the result is cached and
+     returns its result; duplicates get the same result without running it.
+     */
+    public PaymentResult execute(Operation operation, String idempotencyKey, Money amount,
+                                 Supplier<PaymentResult> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            throw new IllegalArgumentException("Idempotency key must not be blank");
+        }
+        Key key = new Key(operation, idempotencyKey);
+
+        Entry existing = entries.get(key);
+        if (existing != null && !existing.isExpired(System.nanoTime())) {
+            return resultFor(existing, amount);
+        }
+
+        Entry mine = new Entry(key, amount);
+        Entry winner = entries.compute(key, (k, current) ->
+                current == null || current.isExpired(System.nanoTime()) ? mine : current);
+        if (winner != mine) {
+            return resultFor(winner, amount);
+        }
+
+        PaymentResult result;
+        try {
+            result = action.get();
+        } catch (GatewayTimeoutException e) {
+            result = PaymentResult.unknown(amount, e.getMessage());
+        } catch (RuntimeException e) {
+            result = PaymentResult.failed(amount, e.getMessage());
+        } catch (Throwable t) {
+            // an Error: drop the entry and release waiting duplicates before propagating,
+            // otherwise they would block on a future nobody completes
+            entries.remove(key, mine);
+            mine.result.completeExceptionally(t);
+            throw t;
+        }
+        if (result.status() == PaymentResult.Status.FAILED) {
+            entries.remove(key, mine);
+        } else {
+            mine.completedAtNanos = System.nanoTime();
+            completionOrder.add(mine);
+            completedCount.incrementAndGet();
+            evict();
+        }
+        mine.result.complete(result);
+        return result;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private PaymentResult resultFor(Entry entry, Money amount) {
+        if (!entry.amount.equals(amount)) {
+            return PaymentResult.rejected(amount, "Idempotency key " + entry.key.idempotencyKey()
+                    + " was already used for amount " + entry.amount);
+        }
+        return entry.result.join();
+    }
+
+    // Drops expired entries from the head, then the oldest ones while over maxEntries.
+    private void evict() {
+        long now = System.nanoTime();
+        Entry oldest;
+        while ((oldest = completionOrder.peek()) != null
+                && (completedCount.get() > maxEntries || oldest.isExpired(now))) {
+            if (completionOrder.remove(oldest)) {
+                completedCount.decrementAndGet();
+                entries.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    private record Key(Operation operation, String idempotencyKey) {
+    }
+
+    private final class Entry {
+        private final Key key;
+        private final Money amount;
+        private final CompletableFuture<PaymentResult> result = new CompletableFuture<>();
+        // 0 while the operation is still running
+        private volatile long completedAtNanos;
+
+        private Entry(Key key, Money amount) {
+            this.key = key;
+            this.amount = amount;
+        }
+
+        private boolean isExpired(long now) {
+            long completedAt = completedAtNanos;
+            return completedAt != 0 && now - completedAt > ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.example;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+ Shows what the IdempotencyCache guarantees:
+ 1. 1000 concurrent retries of the same checkout charge the gateway once
+ 2. a key reused with a different amount is rejected
+ 3. cost of a cache hit (a retry of an already completed payment)
+
+ Run: java -cp target/classes org.example.IdempotencyDemo
+ */
+public class IdempotencyDemo {
+
+    public static void main(String[] args) {
+        SimulatedLatencyGateway gateway = new SimulatedLatencyGateway(Duration.ofMillis(50));
+        CheckoutService checkout = CheckoutService.builder(gateway)
+                .idempotencyCache(new IdempotencyCache(Duration.ofMinutes(10), 100_000))
+                .build();
+
+        List<CompletableFuture<PaymentResult>> retries = new ArrayList<>();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 1_000; i++) {
+                retries.add(CompletableFuture.supplyAsync(() -> checkout.checkout("order-42", 99.99), clients));
+            }
+        }
+        long succeeded = retries.stream().filter(r -> r.join().isSuccess()).count();
+        System.out.println("Concurrent retries: " + retries.size() + " | successful results: " + succeeded
+                + " | gateway charges: " + gateway.paymentCount());
+
+        System.out.println("Same key, other amount: " + checkout.checkout("order-42", 10));
+        System.out.println("Refund with its own key: " + checkout.refund("refund-42", 99.99)
+                + " | repeated: " + checkout.refund("refund-42", 99.99) + " | gateway refunds: " + gateway.refundCount());
+
+        int hits = 5_000_000;
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < hits; i++) {
+                checkout.checkout("order-42", 99.99);
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("Cache hit (%s): %.1f ns per retry%n", round == 0 ? "warm-up" : "measured", (double) elapsed / hits);
+        }
+    }
+}
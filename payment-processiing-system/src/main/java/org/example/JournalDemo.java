@@ -0,0 +1,112 @@
+package org.example;
+
+import org.example.journal.JournalRecord;
+import org.example.journal.PaymentJournal;
+import org.example.journal.RecordType;
+import org.example.journal.RecoveryReport;
+import org.example.logging.NoOpLogSink;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/*
+ Journals payments to a temporary directory and shows:
+ 1. durable payments per second with 1 checkout thread vs many virtual threads - with one
+    thread every payment pays a full fsync, with many the fsyncs are shared (group size)
+ 2. segment rolling (small segments on purpose)
+ 3. a simulated crash: a few intents without outcomes plus a torn record at the end of the
+    last segment, then reopening the journal and printing what recovery found
+ 4. retention: the in-doubt payments are resolved, checkpoint deletes the segments nothing
+    needs any more, and the next open replays only what is left
+
+ Run: java -cp target/classes org.example.JournalDemo [virtualThreads] [seconds]
+ */
+public class JournalDemo {
+
+    private static final long SEGMENT_SIZE = 1024 * 1024;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        long millis = (args.length > 1 ? Long.parseLong(args[1]) : 2) * 1_000;
+        Path directory = Files.createTempDirectory("payment-journal");
+
+        try (PaymentJournal journal = new PaymentJournal(directory, SEGMENT_SIZE)) {
+            SimulatedLatencyGateway gateway = new SimulatedLatencyGateway(Duration.ZERO,
+                    ProcessorConfig.builder().logSink(NoOpLogSink.INSTANCE).journal(journal).build());
+            run("1 thread", gateway, journal, 1, millis);
+            run(threads + " virtual threads", gateway, journal, threads, millis);
+
+            // crash: intents whose gateway calls never returned
+            for (int i = 0; i < 3; i++) {
+                journal.logIntent(RecordType.PAYMENT_INTENT, "CrashedCheckout", Money.ofMinor(1_000 + i));
+            }
+        }
+        Path lastSegment = segments(directory).get(segments(directory).size() - 1);
+        // torn write: a length prefix and part of a record
+        Files.write(lastSegment, new byte[]{0, 0, 0, 60, 1, 2, 3, 4, 5, 6, 7}, StandardOpenOption.APPEND);
+
+        try (PaymentJournal reopened = new PaymentJournal(directory, SEGMENT_SIZE)) {
+            RecoveryReport report = reopened.recoveryReport();
+            System.out.printf("Recovery: %d segments, %d records, last sequence %d, %d bytes discarded%n",
+                    report.segments(), report.records(), report.lastSequence(), report.discardedBytes());
+            for (JournalRecord inDoubt : report.inDoubt()) {
+                System.out.printf("  in doubt: #%d %s %s from %s%n",
+                        inDoubt.paymentId(), inDoubt.type(), inDoubt.amount(), inDoubt.source());
+            }
+            long next = reopened.logIntent(RecordType.PAYMENT_INTENT, "AfterRestart", Money.ofMinor(500));
+            System.out.println("First payment after restart gets id " + next);
+            reopened.logOutcome(RecordType.PAYMENT_COMPLETED, next, "AfterRestart", Money.ofMinor(500));
+
+            // checked with the gateway: the crashed payments never went through
+            for (JournalRecord inDoubt : report.inDoubt()) {
+                reopened.logOutcome(inDoubt.type().failed(), inDoubt.paymentId(), inDoubt.source(), inDoubt.amount());
+            }
+            reopened.sync();
+            int segmentsBefore = segments(directory).size();
+            System.out.printf("Checkpoint: %d of %d segments deleted%n", reopened.checkpoint(), segmentsBefore);
+        }
+        RecoveryReport afterCheckpoint = PaymentJournal.replay(directory);
+        System.out.printf("Next open replays %d segments, %d records, %d in doubt%n",
+                afterCheckpoint.segments(), afterCheckpoint.records(), afterCheckpoint.inDoubt().size());
+        for (Path segment : segments(directory)) {
+            Files.delete(segment);
+        }
+        Files.delete(directory);
+    }
+
+    private static void run(String label, PaymentProcessor gateway, PaymentJournal journal,
+                            int threads, long millis) throws InterruptedException {
+        long recordsBefore = journal.recordsWritten();
+        long fsyncsBefore = journal.groupCommits();
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofVirtual().start(() -> {
+                while (System.nanoTime() < deadline) {
+                    gateway.processPayment(Money.ofMinor(2_500));
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        journal.sync();
+        long records = journal.recordsWritten() - recordsBefore;
+        long fsyncs = journal.groupCommits() - fsyncsBefore;
+        // two records (intent + outcome) per payment
+        System.out.printf("%-20s %,10.0f durable payments/s  %,8d fsyncs  %6.1f records per fsync%n",
+                label, records / 2 * 1000.0 / millis, fsyncs, (double) records / Math.max(1, fsyncs));
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package org.example;
+
+import org.example.logging.NoOpLogSink;
+import org.example.metrics.LatencyHistogram;
+import org.example.reconciliation.ReconciliationIndex;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ Open-loop load generator for latency and soak runs against the real processor of each
+ payment type (card: CreditCardProcessor, debit: DebitCardProcesser, paypal: PayPalProcessor,
+ upi: UpiPaymentProcessor), each behind its own CheckoutService. Only the network is a
+ stub: every gateway call (payment or refund) first waits latencyMicros, so validation,
+ tokenized cards, logging and the processor's own code run as in production.
+
+ Open loop: request i is due at start + i / rps, whether or not earlier requests have
+ finished - like customers, who do not wait for each other. Every request runs on its own
+ virtual thread and needs one of `connections` permits (the client's connection pool)
+ before it reaches the gateway. Payments go through CheckoutService.capture, refunds
+ through refund(paymentId, 1.00) on a recent payment of the same type.
+
+ Coordinated omission: a tester that starts the clock when a request actually gets sent
+ hides the time it spent waiting behind slow earlier requests. Two latencies are recorded:
+ - service time: from getting a connection to completion (what a naive tester reports)
+ - corrected:    from the time the request was due to completion (what a customer sees)
+ stallEverySeconds / stallMillis periodically make every gateway call take stallMillis, so
+ the connections fill up and the two columns drift apart.
+
+ Options (key=value, any order), defaults shown:
+   rps=5000 seconds=20 reportSeconds=5 mix=card:50,debit:10,paypal:25,upi:15 refunds=0.1
+   connections=64 latencyMicros=500 stallEverySeconds=5 stallMillis=200
+
+ Run: java -cp target/classes org.example.LoadGenerator rps=5000 seconds=60
+ */
+public class LoadGenerator {
+
+    private static final Set<String> OPTIONS = Set.of("rps", "seconds", "reportSeconds", "mix", "refunds",
+            "connections", "latencyMicros", "stallEverySeconds", "stallMillis");
+    private static final List<String> PAYMENT_TYPES = List.of("card", "debit", "paypal", "upi");
+    private static final Money REFUND_AMOUNT = Money.ofMinor(100);
+
+    private final StubNetwork network;
+    private final List<Target> targets = new ArrayList<>();
+    private final double[] cumulativeWeights;
+    private final double refundRatio;
+    private final Semaphore connections;
+
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+    private final LatencyHistogram corrected = new LatencyHistogram();
+    // [service time, corrected] of the current report interval, swapped by the reporter
+    private final AtomicReference<LatencyHistogram[]> interval = new AtomicReference<>(newIntervalHistograms());
+    private final LongAdder payments = new LongAdder();
+    private final LongAdder refunds = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private LoadGenerator(Map<String, String> mix, double refundRatio, int connections, Duration latency) {
+        ReconciliationIndex reconciliation = new ReconciliationIndex();
+        this.network = new StubNetwork(latency);
+        this.cumulativeWeights = new double[mix.size()];
+        double total = 0;
+        for (Map.Entry<String, String> entry : mix.entrySet()) {
+            double weight = Double.parseDouble(entry.getValue());
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Weight of " + entry.getKey() + " must be positive");
+            }
+            total += weight;
+            cumulativeWeights[targets.size()] = total;
+            targets.add(new Target(entry.getKey(), processorFor(entry.getKey(), network), reconciliation));
+        }
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            cumulativeWeights[i] /= total;
+        }
+        this.refundRatio = refundRatio;
+        this.connections = new Semaphore(connections);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = parseOptions(args);
+        int rps = Integer.parseInt(options.getOrDefault("rps", "5000"));
+        long seconds = Long.parseLong(options.getOrDefault("seconds", "20"));
+        long reportSeconds = Long.parseLong(options.getOrDefault("reportSeconds", "5"));
+        long stallEverySeconds = Long.parseLong(options.getOrDefault("stallEverySeconds", "5"));
+        long stallMillis = Long.parseLong(options.getOrDefault("stallMillis", "200"));
+        Duration latency = Duration.ofNanos(Long.parseLong(options.getOrDefault("latencyMicros", "500")) * 1_000);
+        if (rps <= 0 || seconds <= 0 || reportSeconds <= 0) {
+            throw new IllegalArgumentException("rps, seconds and reportSeconds must be positive");
+        }
+
+        LoadGenerator generator = new LoadGenerator(
+                parseMix(options.getOrDefault("mix", "card:50,debit:10,paypal:25,upi:15")),
+                Double.parseDouble(options.getOrDefault("refunds", "0.1")),
+                Integer.parseInt(options.getOrDefault("connections", "64")),
+                latency);
+        System.out.printf("Open loop: %,d requests/s for %d s, options %s%n", rps, seconds, options);
+
+        Thread reporter = Thread.ofPlatform().daemon().start(() -> generator.reportEvery(reportSeconds));
+        Thread staller = stallEverySeconds > 0 && stallMillis > 0
+                ? Thread.ofPlatform().daemon().start(() -> generator.stallEvery(stallEverySeconds, stallMillis, latency))
+                : null;
+
+        long start = System.nanoTime();
+        long sent = generator.run(rps, start, start + seconds * 1_000_000_000L);
+        long elapsedNanos = System.nanoTime() - start;
+        reporter.interrupt();
+        if (staller != null) {
+            staller.interrupt();
+        }
+        generator.printSummary(sent, elapsedNanos);
+    }
+
+    // Dispatches on the schedule until end, then waits for every request to finish.
+    private long run(int rps, long start, long end) {
+        SplittableRandom random = new SplittableRandom(42);
+        long sent = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                // computed from i, not by adding a period, so rounding does not drift
+                long due = start + i * 1_000_000_000L / rps;
+                if (due >= end) {
+                    break;
+                }
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                // late (GC pause, overloaded CPU): send right away, but keep the due time
+                Target target = pick(random.nextDouble());
+                boolean refund = random.nextDouble() < refundRatio;
+                executor.execute(() -> request(target, refund, due));
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    private void request(Target target, boolean refund, long due) {
+        connections.acquireUninterruptibly();
+        long sentAt = System.nanoTime();
+        try {
+            long paymentId = refund ? target.recentPayment() : 0;
+            // a refund before the first payment of its type is sent as a payment
+            if (paymentId != 0) {
+                PaymentResult result = target.checkout.refund(paymentId, REFUND_AMOUNT);
+                (result.isSuccess() ? refunds : rejected).increment();
+            } else {
+                target.remember(target.checkout.capture(Money.ofMinor(2_500)));
+                payments.increment();
+            }
+        } catch (RuntimeException e) {
+            failed.increment();
+        } finally {
+            connections.release();
+        }
+        long done = System.nanoTime();
+        serviceTime.record(done - sentAt);
+        corrected.record(done - due);
+        target.corrected.record(done - due);
+        LatencyHistogram[] current = interval.get();
+        current[0].record(done - sentAt);
+        current[1].record(done - due);
+    }
+
+    private Target pick(double roll) {
+        for (int i = 0; i < cumulativeWeights.length - 1; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return targets.get(i);
+            }
+        }
+        return targets.get(targets.size() - 1);
+    }
+
+    private void reportEvery(long seconds) {
+        long intervalStart = System.nanoTime();
+        while (true) {
+            try {
+                Thread.sleep(Duration.ofSeconds(seconds));
+            } catch (InterruptedException e) {
+                return;
+            }
+            LatencyHistogram[] finished = interval.getAndSet(newIntervalHistograms());
+            long now = System.nanoTime();
+            LatencyHistogram.Snapshot service = finished[0].snapshot();
+            LatencyHistogram.Snapshot customer = finished[1].snapshot();
+            System.out.printf("  %,9.0f req/s  p99 service %8.2f ms  corrected %8.2f ms  max corrected %8.2f ms%n",
+                    service.count() * 1e9 / (now - intervalStart), millis(service.p99Nanos()),
+                    millis(customer.p99Nanos()), millis(customer.maxNanos()));
+            intervalStart = now;
+        }
+    }
+
+    private void stallEvery(long seconds, long stallMillis, Duration latency) {
+        while (true) {
+            try {
+                Thread.sleep(Duration.ofSeconds(seconds));
+                network.latency = Duration.ofMillis(stallMillis);
+                Thread.sleep(stallMillis);
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                network.latency = latency;
+            }
+        }
+    }
+
+    private void printSummary(long sent, long elapsedNanos) {
+        long completed = payments.sum() + refunds.sum() + rejected.sum() + failed.sum();
+        System.out.printf("Sent %,d, completed %,d (%,.0f req/s): %,d payments, %,d refunds, %,d refunds rejected, %,d failed%n",
+                sent, completed, completed * 1e9 / elapsedNanos, payments.sum(), refunds.sum(), rejected.sum(), failed.sum());
+        System.out.printf("%-22s %10s %9s %9s %9s %9s %9s %9s%n",
+                "latency (ms)", "count", "mean", "p50", "p90", "p99", "p99.9", "max");
+        printRow("service time", serviceTime.snapshot());
+        printRow("corrected", corrected.snapshot());
+        for (Target target : targets) {
+            printRow("corrected " + target.name, target.corrected.snapshot());
+        }
+    }
+
+    private static void printRow(String name, LatencyHistogram.Snapshot s) {
+        System.out.printf("%-22s %10d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, s.count(),
+                millis(s.meanNanos()), millis(s.p50Nanos()), millis(s.p90Nanos()),
+                millis(s.p99Nanos()), millis(s.p999Nanos()), millis(s.maxNanos()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static LatencyHistogram[] newIntervalHistograms() {
+        return new LatencyHistogram[]{new LatencyHistogram(), new LatencyHistogram()};
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0 || !OPTIONS.contains(arg.substring(0, eq))) {
+                throw new IllegalArgumentException("Expected key=value with key one of " + OPTIONS + ", got " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    // "card:50,paypal:25" -> {card=50, paypal=25}, in the given order
+    private static Map<String, String> parseMix(String mix) {
+        Map<String, String> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] typeAndWeight = part.split(":");
+            if (typeAndWeight.length != 2) {
+                throw new IllegalArgumentException("Expected type:weight in mix, got " + part);
+            }
+            String type = typeAndWeight[0].trim();
+            if (!PAYMENT_TYPES.contains(type)) {
+                throw new IllegalArgumentException("Unknown payment type " + type + " in mix, expected one of "
+                        + PAYMENT_TYPES);
+            }
+            if (weights.put(type, typeAndWeight[1].trim()) != null) {
+                throw new IllegalArgumentException("Payment type " + type + " appears twice in mix");
+            }
+        }
+        return weights;
+    }
+
+    private static AbstractRefundablePaymentProcessor processorFor(String type, StubNetwork network) {
+        ProcessorConfig config = ProcessorConfig.builder().logSink(NoOpLogSink.INSTANCE).build();
+        return switch (type) {
+            case "card" -> new StubbedCreditCard(network, config);
+            case "debit" -> new StubbedDebitCard(network, config);
+            case "paypal" -> new StubbedPayPal(network, config);
+            case "upi" -> new StubbedUpi(network, config);
+            default -> throw new IllegalArgumentException("Unknown payment type " + type);
+        };
+    }
+
+    // The network between the processors and their gateways: every call waits for latency.
+    private static final class StubNetwork {
+        private volatile Duration latency;
+
+        private StubNetwork(Duration latency) {
+            this.latency = latency;
+        }
+
+        private void await() {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Gateway call interrupted", e);
+            }
+        }
+    }
+
+    /*
+     The real processors with the stub network in front of their gateway calls. Named
+     classes, not anonymous ones: the class name is what metrics and reconciliation report.
+     */
+    private static final class StubbedCreditCard extends CreditCardProcessor {
+        private final StubNetwork network;
+
+        private StubbedCreditCard(StubNetwork network, ProcessorConfig config) {
+            super("4111111111111111", config);
+            this.network = network;
+        }
+
+        @Override
+        protected void executePayment(Money amount) {
+            network.await();
+            super.executePayment(amount);
+        }
+
+        @Override
+        protected void executeRefund(Money amount) {
+            network.await();
+            super.executeRefund(amount);
+        }
+    }
+
+    private static final class StubbedDebitCard extends DebitCardProcesser {
+        private final StubNetwork network;
+
+        private StubbedDebitCard(StubNetwork network, ProcessorConfig config) {
+            super("5500000000000004", config);
+            this.network = network;
+        }
+
+        @Override
+        protected void executePayment(Money amount) {
+            network.await();
+            super.executePayment(amount);
+        }
+
+        @Override
+        protected void executeRefund(Money amount) {
+            network.await();
+            super.executeRefund(amount);
+        }
+    }
+
+    private static final class StubbedPayPal extends PayPalProcessor {
+        private final StubNetwork network;
+
+        private StubbedPayPal(StubNetwork network, ProcessorConfig config) {
+            super("buyer@example.com", config);
+            this.network = network;
+        }
+
+        @Override
+        protected void executePayment(Money amount) {
+            network.await();
+            super.executePayment(amount);
+        }
+
+        @Override
+        protected void executeRefund(Money amount) {
+            network.await();
+            super.executeRefund(amount);
+        }
+    }
+
+    private static final class StubbedUpi extends UpiPaymentProcessor {
+        private final StubNetwork network;
+
+        private StubbedUpi(StubNetwork network, ProcessorConfig config) {
+            super(config);
+            this.network = network;
+        }
+
+        @Override
+        public void executePayment(Money amount) {
+            network.await();
+            super.executePayment(amount);
+        }
+
+        @Override
+        protected void executeRefund(Money amount) {
+            network.await();
+            super.executeRefund(amount);
+        }
+    }
+
+    // One payment type: its checkout and the ids of its recent payments (for refunds).
+    private static final class Target {
+        private static final int RECENT = 1 << 10;
+
+        private final String name;
+        private final CheckoutService checkout;
+        private final LatencyHistogram corrected = new LatencyHistogram();
+        private final AtomicLongArray recentPayments = new AtomicLongArray(RECENT);
+        private final AtomicLong paymentCount = new AtomicLong();
+
+        private Target(String name, AbstractRefundablePaymentProcessor processor, ReconciliationIndex reconciliation) {
+            this.name = name;
+            this.checkout = CheckoutService.builder(processor).reconciliation(reconciliation).build();
+        }
+
+        private void remember(long paymentId) {
+            recentPayments.set((int) (paymentCount.getAndIncrement() & (RECENT - 1)), paymentId);
+        }
+
+        // 0 while there is no payment of this type yet
+        private long recentPayment() {
+            long count = paymentCount.get();
+            if (count == 0) {
+                return 0;
+            }
+            // a slot whose id is not written yet reads 0: that request becomes a payment
+            return recentPayments.get(ThreadLocalRandom.current().nextInt((int) Math.min(count, RECENT)));
+        }
+    }
+}
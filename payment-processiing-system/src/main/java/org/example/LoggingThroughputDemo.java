@@ -0,0 +1,61 @@
+package org.example;
+
+import org.example.logging.AsyncRingBufferLogSink;
+import org.example.logging.ConsoleLogSink;
+import org.example.logging.LogSink;
+import org.example.logging.NoOpLogSink;
+import org.example.logging.SamplingLogSink;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ Compares payment throughput with each LogSink. Every payment logs two lines (the template's
+ "Processing payment" line and the processor's own line).
+
+ Output goes to a discarding PrintStream so the terminal speed does not matter; what is
+ measured is the cost paid on the payment threads (locking, formatting, encoding).
+
+ Run: java -cp target/classes org.example.LoggingThroughputDemo [threads] [paymentsPerThread]
+ */
+public class LoggingThroughputDemo {
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int paymentsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+        for (int round = 0; round < 2; round++) {
+            // first round warms up the JIT, second round is the one to read
+            System.out.println(round == 0 ? "Warm-up" : "Measured");
+            run("console", new ConsoleLogSink(discard), threads, paymentsPerThread);
+            try (AsyncRingBufferLogSink async = new AsyncRingBufferLogSink(1 << 16, discard)) {
+                run("async ring buffer", async, threads, paymentsPerThread);
+                System.out.println("    dropped lines: " + async.droppedCount());
+            }
+            run("sampling 1/1000", new SamplingLogSink(new ConsoleLogSink(discard), 1000), threads, paymentsPerThread);
+            run("no-op", NoOpLogSink.INSTANCE, threads, paymentsPerThread);
+        }
+    }
+
+    private static void run(String name, LogSink sink, int threads, int paymentsPerThread) throws InterruptedException {
+        PaymentProcessor processor = new UpiPaymentProcessor(sink);
+        List<Thread> workers = new ArrayList<>(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 1; i <= paymentsPerThread; i++) {
+                    processor.processPayment(i);
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long payments = (long) threads * paymentsPerThread;
+        System.out.printf("  %-18s %,12d payments/s%n", name, payments * 1_000_000_000L / elapsedNanos);
+    }
+}
@@ -1,5 +1,7 @@
 package org.example;
 
+import java.util.List;
+
 //TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
 // click the <icon src="AllIcons.Actions.Execute"/> icon in the gutter.
 public class Main {
@@ -19,13 +21,27 @@ public class Main {
             refundable.processRefund(75);
         }
 
-        PaymentProcessor processor3 = new DebitCardProcesser("1A1zP1eP5QGefi2DMPTfTL5SLmv7DivfNa");
+        PaymentProcessor processor3 = new DebitCardProcesser("5500000000000004");
         processor3.processPayment(300);
         if(processor3 instanceof Refundable){
             Refundable refundable = (Refundable) processor3;
             refundable.processRefund(100);
         }
 
+        // Batch checkout: the invalid amount comes back as REJECTED, the rest are charged in one step
+        CheckoutService batchCheckout = new CheckoutService(new CreditCardProcessor("123456781"));
+        List<PaymentResult> results = batchCheckout.checkoutBatch(new double[]{10, 20, -5, 30});
+        results.forEach(System.out::println);
+
+        // Routing: one checkout in front of several processors, the router picks one per payment
+        RoutingPaymentProcessor router = new RoutingPaymentProcessor(List.of(
+                new RoutingPaymentProcessor.Backend("card", new CreditCardProcessor("4111111111111111"), 2, 100),
+                new RoutingPaymentProcessor.Backend("paypal", new PayPalProcessor("akfmav"), 1, 100),
+                new RoutingPaymentProcessor.Backend("upi", new UpiPaymentProcessor(), 1, 100)));
+        CheckoutService routedCheckout = new CheckoutService(router);
+        routedCheckout.checkout(42);
+        routedCheckout.checkout(43);
+
 /*
 //This volites the DIP as we are depending on concrete classes
         //rather than abstractions
@@ -0,0 +1,59 @@
+package org.example;
+
+import org.example.logging.NoOpLogSink;
+import org.example.metrics.PaymentMetrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/*
+ Records stage latencies for a fast in-memory processor and a slow simulated gateway and
+ prints the metrics table: every second while running, then once at the end. The slow
+ gateway stands out in the EXECUTE row; the invalid amounts show up as VALIDATE failures.
+
+ Run: java -cp target/classes org.example.MetricsDemo
+ */
+public class MetricsDemo {
+
+    public static void main(String[] args) {
+        PaymentMetrics metrics = new PaymentMetrics();
+        // closing stops the periodic dump, so the final report below is printed on its own
+        try (metrics) {
+            metrics.startPeriodicDump(Duration.ofSeconds(1), System.out);
+
+            UpiPaymentProcessor upi = new UpiPaymentProcessor(NoOpLogSink.INSTANCE, metrics);
+            CreditCardProcessor card = new CreditCardProcessor("4111111111111111", NoOpLogSink.INSTANCE, metrics);
+            for (int i = 0; i < 1_000_000; i++) {
+                // every 1000th amount is invalid
+                double amount = i % 1000 == 0 ? -1 : 10 + i % 100;
+                pay(upi, amount);
+                pay(card, amount);
+                if (i % 10 == 0) {
+                    upi.processRefund(5);
+                }
+            }
+
+            SimulatedLatencyGateway gateway = new SimulatedLatencyGateway(Duration.ofMillis(20), metrics);
+            try (VirtualThreadPaymentExecutor executor = new VirtualThreadPaymentExecutor(500)) {
+                CheckoutService checkout = CheckoutService.builder(gateway).asyncExecutor(executor).build();
+                List<CompletableFuture<PaymentResult>> futures = new ArrayList<>();
+                for (int i = 0; i < 5_000; i++) {
+                    futures.add(checkout.checkoutAsync(25));
+                }
+                futures.forEach(CompletableFuture::join);
+            }
+        }
+        System.out.println("Final:");
+        System.out.print(metrics.report());
+    }
+
+    private static void pay(PaymentProcessor processor, double amount) {
+        try {
+            processor.processPayment(amount);
+        } catch (IllegalArgumentException e) {
+            // counted as a VALIDATE failure
+        }
+    }
+}
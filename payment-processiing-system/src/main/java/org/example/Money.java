@@ -0,0 +1,174 @@
+package org.example;
+
+import java.util.Currency;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ An amount of money: a whole number of minor units (cents, paise...) plus its currency.
+
+ why not double: 0.1 + 0.2 != 0.3 in double, so every double amount needed rounding and
+ formatting downstream and was still not exact. A long of minor units is exact, and adding
+ two of them is one CPU instruction. Formatting (appendTo) writes digits straight into a
+ StringBuilder, without BigDecimal or String.format.
+
+ Money is immutable. Small amounts (up to 10,000 minor units, i.e. 100.00 in a currency with
+ two decimals) are cached per currency, so the common payment amounts do not allocate.
+
+ The double versions of the payment APIs convert with fromDouble, which rounds to the
+ nearest minor unit.
+ */
+public final class Money implements Comparable<Money> {
+
+    // currency used by the double bridges (the old APIs printed amounts in $)
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("USD");
+
+    private static final int CACHED_MINOR_UNITS = 10_000;
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+    // above this, minor units no longer fit exactly into a double
+    private static final double MAX_EXACT_DOUBLE = 1L << 53;
+    private static final Map<Currency, Money[]> CACHE = new ConcurrentHashMap<>();
+    // the default currency skips the map lookup
+    private static final Money[] DEFAULT_CURRENCY_CACHE =
+            CACHE.computeIfAbsent(DEFAULT_CURRENCY, c -> new Money[CACHED_MINOR_UNITS + 1]);
+
+    private final long minorUnits;
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    public static Money of(long minorUnits, Currency currency) {
+        fractionDigits(currency);
+        if (minorUnits < 0 || minorUnits > CACHED_MINOR_UNITS) {
+            return new Money(minorUnits, currency);
+        }
+        Money[] cached = currency == DEFAULT_CURRENCY
+                ? DEFAULT_CURRENCY_CACHE
+                : CACHE.computeIfAbsent(currency, c -> new Money[CACHED_MINOR_UNITS + 1]);
+        Money money = cached[(int) minorUnits];
+        if (money == null) {
+            // two threads may both create it; either copy is fine, Money is immutable
+            money = new Money(minorUnits, currency);
+            cached[(int) minorUnits] = money;
+        }
+        return money;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return of(minorUnits, DEFAULT_CURRENCY);
+    }
+
+    // Bridge for the double APIs: rounds to the nearest minor unit of the default currency.
+    public static Money fromDouble(double amount) {
+        return fromDouble(amount, DEFAULT_CURRENCY);
+    }
+
+    public static Money fromDouble(double amount, Currency currency) {
+        double scaled = amount * POWERS_OF_TEN[fractionDigits(currency)];
+        if (Double.isNaN(scaled) || Math.abs(scaled) > MAX_EXACT_DOUBLE) {
+            throw new IllegalArgumentException("Amount is not a valid money amount: " + amount);
+        }
+        return of(Math.round(scaled), currency);
+    }
+
+    public long minorUnits() {
+        return minorUnits;
+    }
+
+    public Currency currency() {
+        return currency;
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return of(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return of(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public static Money sum(Money[] amounts, Currency currency) {
+        long total = 0;
+        for (Money amount : amounts) {
+            if (amount.currency != currency) {
+                throw new IllegalArgumentException("Cannot add " + amount.currency + " to " + currency);
+            }
+            total = Math.addExact(total, amount.minorUnits);
+        }
+        return of(total, currency);
+    }
+
+    // Only for the double bridges and for display; not exact for every amount.
+    public double toDouble() {
+        return (double) minorUnits / POWERS_OF_TEN[fractionDigits(currency)];
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    // Appends e.g. "12.05 USD" without creating intermediate Strings.
+    public StringBuilder appendTo(StringBuilder out) {
+        int digits = fractionDigits(currency);
+        long units = minorUnits;
+        if (units < 0) {
+            out.append('-');
+            units = -units;
+        }
+        long scale = POWERS_OF_TEN[digits];
+        out.append(units / scale);
+        if (digits > 0) {
+            out.append('.');
+            long fraction = units % scale;
+            for (long pad = scale / 10; pad > 1 && fraction < pad; pad /= 10) {
+                out.append('0');
+            }
+            out.append(fraction);
+        }
+        return out.append(' ').append(currency.getCurrencyCode());
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(24)).toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && minorUnits == other.minorUnits && currency == other.currency;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits) * 31 + currency.hashCode();
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (currency != other.currency) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " vs " + other.currency);
+        }
+    }
+
+    private static int fractionDigits(Currency currency) {
+        int digits = currency.getDefaultFractionDigits();
+        if (digits < 0 || digits >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Currency " + currency + " has no usable minor unit");
+        }
+        return digits;
+    }
+}
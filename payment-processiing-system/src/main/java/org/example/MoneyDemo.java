@@ -0,0 +1,55 @@
+package org.example;
+
+/*
+ Money versus double:
+ 1. exactness: adding 0.10 ten times
+ 2. formatting cost: the old "Processing payment of $" + amount (double to String concatenation)
+    against Money.appendTo, building each line the way ConsoleLogSink does: a new
+    StringBuilder per line, turned into a String
+
+ Run: java -cp target/classes org.example.MoneyDemo [iterations]
+ */
+public class MoneyDemo {
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+
+        double doubleTotal = 0;
+        Money moneyTotal = Money.ofMinor(0);
+        for (int i = 0; i < 10; i++) {
+            doubleTotal += 0.10;
+            moneyTotal = moneyTotal.plus(Money.ofMinor(10));
+        }
+        System.out.println("10 x 0.10 as double: " + doubleTotal + " | as Money: " + moneyTotal);
+
+        double[] doubles = new double[1024];
+        Money[] amounts = new Money[1024];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = Money.ofMinor(100 + i * 37L);
+            doubles[i] = amounts[i].toDouble();
+        }
+
+        for (int round = 0; round < 2; round++) {
+            String label = round == 0 ? "warm-up" : "measured";
+            long checksum = 0;
+
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                String line = "Processing payment of $" + doubles[i & 1023];
+                checksum += line.length();
+            }
+            long concatNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                StringBuilder line = new StringBuilder(64);
+                amounts[i & 1023].appendTo(line.append("Processing payment of "));
+                checksum += line.toString().length();
+            }
+            long moneyNanos = System.nanoTime() - start;
+
+            System.out.printf("%-8s double concat %6.1f ns/line | Money.appendTo %6.1f ns/line (checksum %d)%n",
+                    label, (double) concatNanos / iterations, (double) moneyNanos / iterations, checksum);
+        }
+    }
+}
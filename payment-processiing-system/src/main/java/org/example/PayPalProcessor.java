@@ -1,6 +1,9 @@
 package org.example;
 
-public class PayPalProcessor extends AbstractPaymentProcessor implements Refundable {
+import org.example.logging.LogSink;
+import org.example.metrics.PaymentMetrics;
+
+public class PayPalProcessor extends AbstractRefundablePaymentProcessor {
 
     private String email;
 
@@ -8,13 +11,40 @@ public class PayPalProcessor extends AbstractPaymentProcessor implements Refunda
         this.email = email;
     }
 
+    public PayPalProcessor(String email, LogSink logSink) {
+        super(logSink);
+        this.email = email;
+    }
+
+    public PayPalProcessor(String email, LogSink logSink, PaymentMetrics metrics) {
+        super(logSink, metrics);
+        this.email = email;
+    }
+
+    public PayPalProcessor(String email, ProcessorConfig config) {
+        super(config);
+        this.email = email;
+    }
+
+    @Override
+    protected void executePayment(Money amount) {
+        if (logSink.isEnabled()) {
+            logSink.log("Processing PayPal payment of {} for account: {}", amount, email);
+        }
+    }
+
     @Override
-    protected void executePayment(double amount) {
-        System.out.println("Processing PayPal payment of $" + amount + " for account: " + email);
+    protected void executeBatch(Money[] amounts) {
+        Money total = Money.sum(amounts, amounts[0].currency());
+        if (logSink.isEnabled()) {
+            logSink.log("Processing PayPal batch of {} payments totalling {} for account: {}", amounts.length, total, email);
+        }
     }
 
     @Override
-    public void processRefund(double amount) {
-        System.out.println("Processing PayPal refund of $" + amount + " for account: " + email);
+    protected void executeRefund(Money amount) {
+        if (logSink.isEnabled()) {
+            logSink.log("Processing PayPal refund of {} for account: {}", amount, email);
+        }
     }
 }
@@ -1,7 +1,48 @@
 package org.example;
 
+import org.example.resilience.GatewayTimeoutException;
+
+import java.util.ArrayList;
+import java.util.List;
+
 public interface PaymentProcessor {
 
-    void processPayment(double amount);
+    void processPayment(Money amount);
+
+    // Bridge for callers that still pass double amounts (rounded to the nearest cent).
+    default void processPayment(double amount) {
+        processPayment(Money.fromDouble(amount));
+    }
+
+    /*
+     Processes many payments in one call and returns one result per amount (same order).
+     The default just loops over processPayment so every PaymentProcessor supports batches;
+     AbstractPaymentProcessor overrides it to validate the whole batch, log once and hand the
+     valid amounts to the processor in a single step.
+     */
+    default List<PaymentResult> processBatch(Money[] amounts) {
+        List<PaymentResult> results = new ArrayList<>(amounts.length);
+        for (Money amount : amounts) {
+            try {
+                processPayment(amount);
+                results.add(PaymentResult.success(amount));
+            } catch (IllegalArgumentException e) {
+                results.add(PaymentResult.rejected(amount, e.getMessage()));
+            } catch (GatewayTimeoutException e) {
+                results.add(PaymentResult.unknown(amount, e.getMessage()));
+            } catch (RuntimeException e) {
+                results.add(PaymentResult.failed(amount, e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    default List<PaymentResult> processBatch(double[] amounts) {
+        Money[] converted = new Money[amounts.length];
+        for (int i = 0; i < amounts.length; i++) {
+            converted[i] = Money.fromDouble(amounts[i]);
+        }
+        return processBatch(converted);
+    }
 
 }
@@ -0,0 +1,37 @@
+package org.example;
+
+/*
+ Outcome of one payment, returned instead of throwing.
+ A batch call returns one PaymentResult per input amount, in the same order, so a
+ single bad amount does not abort the whole batch and the caller can see exactly
+ which items went through.
+ */
+public record PaymentResult(Money amount, Status status, String message) {
+
+    public enum Status {
+        SUCCESS,   // payment executed
+        REJECTED,  // failed validation, never sent to the gateway
+        FAILED,    // passed validation, but the gateway call threw: not charged
+        UNKNOWN    // the gateway did not answer in time: may have been charged, check before retrying
+    }
+
+    public static PaymentResult success(Money amount) {
+        return new PaymentResult(amount, Status.SUCCESS, "OK");
+    }
+
+    public static PaymentResult rejected(Money amount, String reason) {
+        return new PaymentResult(amount, Status.REJECTED, reason);
+    }
+
+    public static PaymentResult failed(Money amount, String reason) {
+        return new PaymentResult(amount, Status.FAILED, reason);
+    }
+
+    public static PaymentResult unknown(Money amount, String reason) {
+        return new PaymentResult(amount, Status.UNKNOWN, reason);
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+}
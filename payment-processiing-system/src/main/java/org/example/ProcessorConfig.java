@@ -0,0 +1,99 @@
+package org.example;
+
+import org.example.journal.PaymentJournal;
+import org.example.logging.ConsoleLogSink;
+import org.example.logging.LogSink;
+import org.example.metrics.PaymentMetrics;
+import org.example.resilience.ResiliencePolicy;
+
+/*
+ Optional collaborators of a processor, passed to its constructor in one object so that a
+ new cross-cutting feature does not need yet another constructor in every processor.
+
+ ProcessorConfig.builder()
+         .logSink(NoOpLogSink.INSTANCE)
+         .metrics(metrics)
+         .resilience(ResiliencePolicy.builder("card").timeout(Duration.ofSeconds(2)).build())
+         .journal(journal)
+         .build();
+
+ Defaults: console logging, no metrics, no resilience guard, no journal. One journal can be
+ shared by all processors (records carry the processor name). A ResiliencePolicy holds
+ state, so give each processor its own config when one is set.
+ */
+public final class ProcessorConfig {
+
+    private final LogSink logSink;
+    private final PaymentMetrics metrics;
+    private final ResiliencePolicy resilience;
+    private final PaymentJournal journal;
+
+    private ProcessorConfig(Builder builder) {
+        this.logSink = builder.logSink;
+        this.metrics = builder.metrics;
+        this.resilience = builder.resilience;
+        this.journal = builder.journal;
+    }
+
+    public static ProcessorConfig defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public LogSink logSink() {
+        return logSink;
+    }
+
+    // null when no metrics are recorded
+    public PaymentMetrics metrics() {
+        return metrics;
+    }
+
+    // null when gateway calls are not guarded
+    public ResiliencePolicy resilience() {
+        return resilience;
+    }
+
+    // null when payments are not journaled
+    public PaymentJournal journal() {
+        return journal;
+    }
+
+    public static class Builder {
+
+        private LogSink logSink = new ConsoleLogSink();
+        private PaymentMetrics metrics;
+        private ResiliencePolicy resilience;
+        private PaymentJournal journal;
+
+        private Builder() {
+        }
+
+        public Builder logSink(LogSink logSink) {
+            this.logSink = logSink;
+            return this;
+        }
+
+        public Builder metrics(PaymentMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public Builder resilience(ResiliencePolicy resilience) {
+            this.resilience = resilience;
+            return this;
+        }
+
+        public Builder journal(PaymentJournal journal) {
+            this.journal = journal;
+            return this;
+        }
+
+        public ProcessorConfig build() {
+            return new ProcessorConfig(this);
+        }
+    }
+}
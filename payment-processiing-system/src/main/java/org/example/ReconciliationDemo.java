@@ -0,0 +1,124 @@
+package org.example;
+
+import org.example.logging.NoOpLogSink;
+import org.example.reconciliation.ProcessorTotals;
+import org.example.reconciliation.ReconciliationIndex;
+import org.example.reconciliation.RefundDecision;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ 1. Refunds through CheckoutService: a full refund, a partial one and an over-refund that
+    is rejected before the gateway is called.
+ 2. Many threads race partial refunds on the same payments; afterwards no payment may be
+    refunded beyond its capture, and the accepted refunds must add up to the refunded totals.
+ 3. End-of-day totals and a CSV report streamed over all payments (written to a counting
+    Writer here instead of a file).
+
+ Run: java -cp target/classes org.example.ReconciliationDemo [payments] [threads]
+ */
+public class ReconciliationDemo {
+
+    public static void main(String[] args) throws InterruptedException {
+        int payments = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+        ReconciliationIndex index = new ReconciliationIndex();
+        CheckoutService checkout = CheckoutService.builder(new UpiPaymentProcessor(NoOpLogSink.INSTANCE))
+                .reconciliation(index)
+                .build();
+        long paymentId = checkout.capture(Money.ofMinor(5_000));
+        System.out.println("Refund 30.00 of 50.00:  " + checkout.refund(paymentId, Money.ofMinor(3_000)).status());
+        System.out.println("Refund 30.00 more:      " + checkout.refund(paymentId, Money.ofMinor(3_000)));
+        System.out.println("Refund the last 20.00:  " + checkout.refund(paymentId, Money.ofMinor(2_000)).status());
+
+        // captures recorded directly: the point here is the index, not the processors
+        String[] processors = {"CreditCardProcessor", "PayPalProcessor", "UpiPaymentProcessor"};
+        long start = System.nanoTime();
+        for (int i = 0; i < payments; i++) {
+            index.recordCapture(processors[i % processors.length], Money.ofMinor(1_000 + i % 9_000));
+        }
+        printRate("captures", payments, start);
+
+        LongAdder acceptedMinorUnits = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        long lastId = index.paymentCount();
+        // only a few hot payments, so threads really collide on the same CAS
+        int refundsPerThread = payments / threads;
+        start = System.nanoTime();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < refundsPerThread; i++) {
+                    long id = i % 4 == 0 ? 2 + random.nextLong(1_000) : 2 + random.nextLong(lastId - 1);
+                    Money amount = Money.ofMinor(1 + random.nextInt(1_000));
+                    if (index.reserveRefund(id, amount) == RefundDecision.ACCEPTED) {
+                        acceptedMinorUnits.add(amount.minorUnits());
+                    } else {
+                        rejected.increment();
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        printRate("refund checks", (long) refundsPerThread * threads, start);
+        System.out.printf("  %,d rejected as over-refunds%n", rejected.sum());
+
+        start = System.nanoTime();
+        List<ProcessorTotals> totals = index.totals();
+        printRate("payments totalled", index.paymentCount(), start);
+        long refundedMinorUnits = 0;
+        for (ProcessorTotals row : totals) {
+            System.out.printf("  %-20s %,9d payments  captured %s  refunded %s  net %s  fully/partially refunded %,d/%,d%n",
+                    row.processor(), row.payments(), row.captured(), row.refunded(), row.net(),
+                    row.fullyRefunded(), row.partiallyRefunded());
+            refundedMinorUnits += row.refunded().minorUnits();
+            if (row.refunded().compareTo(row.captured()) > 0) {
+                throw new IllegalStateException("Refunded more than captured for " + row.processor());
+            }
+        }
+        // 5,000 from the CheckoutService example above
+        if (refundedMinorUnits != acceptedMinorUnits.sum() + 5_000) {
+            throw new IllegalStateException("Refund totals do not match: " + refundedMinorUnits
+                    + " != " + (acceptedMinorUnits.sum() + 5_000));
+        }
+        System.out.println("  refunded totals match the accepted refunds");
+
+        CountingWriter counter = new CountingWriter();
+        start = System.nanoTime();
+        index.writeReport(new BufferedWriter(counter, 1 << 16));
+        printRate("report lines", index.paymentCount(), start);
+        System.out.printf("  %,d characters written%n", counter.characters);
+    }
+
+    private static void printRate(String what, long count, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("%,d %s in %.2f s (%,.0f/s)%n", count, what, seconds, count / seconds);
+    }
+
+    private static final class CountingWriter extends Writer {
+        private long characters;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            characters += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+}
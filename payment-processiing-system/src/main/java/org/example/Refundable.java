@@ -1,5 +1,10 @@
 package org.example;
 
 public interface Refundable {
-    void processRefund(double amount);
+    void processRefund(Money amount);
+
+    // Bridge for callers that still pass double amounts.
+    default void processRefund(double amount) {
+        processRefund(Money.fromDouble(amount));
+    }
 }
@@ -0,0 +1,93 @@
+package org.example;
+
+import org.example.logging.NoOpLogSink;
+import org.example.resilience.ResiliencePolicy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ A fixed pool of checkout threads sends payments alternately to a healthy gateway and a
+ FaultInjectingGateway. Phases: both healthy -> the faulty gateway hangs -> it recovers.
+ Printed per phase: healthy payments per second and the circuit breaker state.
+
+ Without resilience every checkout thread ends up stuck in the hung gateway and healthy
+ throughput drops to zero. With a ResiliencePolicy (bulkhead + timeout + circuit breaker)
+ at most a few threads wait on it, the breaker opens after a few timeouts, and healthy
+ payments keep flowing; after recovery the half open probes close the breaker again.
+
+ Run: java -cp target/classes org.example.ResilienceDemo [threads] [phaseMillis]
+ */
+public class ResilienceDemo {
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        long phaseMillis = args.length > 1 ? Long.parseLong(args[1]) : 1_500;
+
+        System.out.println("Without resilience:");
+        run(null, null, threads, phaseMillis);
+
+        System.out.println("With bulkhead + timeout + circuit breaker:");
+        run(policy("healthy"), policy("faulty"), threads, phaseMillis);
+    }
+
+    private static ResiliencePolicy policy(String name) {
+        return ResiliencePolicy.builder(name)
+                .circuitBreaker(5, Duration.ofMillis(300), 3)
+                .bulkhead(16, 16, Duration.ofMillis(20))
+                .timeout(Duration.ofMillis(100))
+                .build();
+    }
+
+    private static void run(ResiliencePolicy healthyPolicy, ResiliencePolicy faultyPolicy,
+                            int threads, long phaseMillis) throws InterruptedException {
+        PaymentProcessor healthy = new FaultInjectingGateway(Duration.ofMillis(2), config(healthyPolicy));
+        FaultInjectingGateway faulty = new FaultInjectingGateway(Duration.ofMillis(2), config(faultyPolicy));
+
+        String[] phases = {"healthy", "faulty hangs", "recovered"};
+        LongAdder[] healthyPayments = new LongAdder[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            healthyPayments[i] = new LongAdder();
+        }
+        AtomicInteger phase = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().daemon().start(() -> {
+                for (long i = 0; running.get(); i++) {
+                    PaymentProcessor target = i % 2 == 0 ? healthy : faulty;
+                    try {
+                        target.processPayment(25);
+                        if (target == healthy) {
+                            healthyPayments[phase.get()].increment();
+                        }
+                    } catch (IllegalStateException e) {
+                        // FAILED checkout: timed out, rejected by bulkhead or breaker
+                    }
+                }
+            }));
+        }
+
+        for (int p = 0; p < phases.length; p++) {
+            phase.set(p);
+            faulty.setFault(p == 1 ? FaultInjectingGateway.Fault.HANG : FaultInjectingGateway.Fault.NONE);
+            Thread.sleep(phaseMillis);
+            String breaker = faultyPolicy == null ? "" : "  faulty breaker: " + faultyPolicy.circuitBreaker().state();
+            System.out.printf("  %-13s healthy payments/s %8d%s%n",
+                    phases[p], healthyPayments[p].sum() * 1000 / phaseMillis, breaker);
+        }
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private static ProcessorConfig config(ResiliencePolicy policy) {
+        return ProcessorConfig.builder().logSink(NoOpLogSink.INSTANCE).resilience(policy).build();
+    }
+}
@@ -0,0 +1,185 @@
+package org.example;
+
+import org.example.logging.NoOpLogSink;
+import org.example.resilience.CircuitBreaker;
+import org.example.resilience.ResiliencePolicy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ Checks for the circuit breaker and ResiliencePolicy, in the style of OutsideTest: every
+ check throws when it fails.
+ - many threads racing into a breaker whose open time has just ended never start more
+   than halfOpenProbes probes, over many open -> half open rounds
+ - a slow call admitted while the breaker was closed neither closes a half open breaker
+   nor frees a probe slot when it finally returns
+ - an Error thrown before or by the gateway call gives back the bulkhead slot and the
+   half open probe slot
+ - while one gateway hangs, healthy payments keep at least a quarter of their throughput,
+   and after it recovers the breaker closes again
+
+ Run: java -cp target/classes org.example.ResilienceTest
+ */
+public class ResilienceTest {
+
+    private static final int THREADS = 16;
+    private static final int HALF_OPEN_PROBES = 3;
+
+    public static void main(String[] args) throws InterruptedException {
+        checkProbeLimit();
+        checkStalePermits();
+        checkErrorsReleaseSlots();
+        checkHealthyThroughput();
+        System.out.println("ResilienceTest: all checks OK");
+    }
+
+    private static void checkProbeLimit() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("probes", 1, Duration.ZERO, HALF_OPEN_PROBES);
+        CircuitBreaker.Permit failing = breaker.acquirePermission();
+        for (int round = 0; round < 500; round++) {
+            breaker.onFailure(failing); // CLOSED -> OPEN, or a failing probe: HALF_OPEN -> OPEN
+            Queue<CircuitBreaker.Permit> admitted = new ConcurrentLinkedQueue<>();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> callers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                callers.add(Thread.ofPlatform().start(() -> {
+                    try {
+                        start.await();
+                        admitted.add(breaker.acquirePermission()); // probes are not finished yet
+                    } catch (IllegalStateException e) {
+                        // rejected: probes in progress
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+            }
+            start.countDown();
+            for (Thread caller : callers) {
+                caller.join();
+            }
+            check(admitted.size() == HALF_OPEN_PROBES, "round " + round + " started " + admitted.size()
+                    + " half open probes, expected " + HALF_OPEN_PROBES);
+            failing = admitted.peek();
+        }
+    }
+
+    private static void checkStalePermits() {
+        CircuitBreaker breaker = new CircuitBreaker("stale", 1, Duration.ZERO, 2);
+        CircuitBreaker.Permit slow = breaker.acquirePermission(); // admitted while CLOSED
+        breaker.onFailure(breaker.acquirePermission());
+        CircuitBreaker.Permit probe = breaker.acquirePermission();
+        check(breaker.state() == CircuitBreaker.State.HALF_OPEN, "breaker is half open");
+
+        breaker.onSuccess(slow);
+        breaker.releasePermission(slow);
+        CircuitBreaker.Permit secondProbe = breaker.acquirePermission();
+        check(breaker.state() == CircuitBreaker.State.HALF_OPEN, "a closed era success does not close the breaker");
+        check(rejects(breaker), "a closed era call does not free a probe slot");
+
+        breaker.onSuccess(probe);
+        breaker.onSuccess(secondProbe);
+        check(breaker.state() == CircuitBreaker.State.CLOSED, "the probes close the breaker");
+    }
+
+    private static void checkErrorsReleaseSlots() {
+        ResiliencePolicy policy = ResiliencePolicy.builder("errors")
+                .circuitBreaker(1, Duration.ZERO, 1)
+                .bulkhead(1, 0, Duration.ZERO)
+                .build();
+        Runnable error = () -> {
+            throw new AssertionError("simulated");
+        };
+        for (int i = 0; i < 3; i++) {
+            try {
+                policy.execute(error, () -> { });
+            } catch (AssertionError expected) {
+            }
+            try {
+                policy.execute(error);
+            } catch (AssertionError expected) {
+            }
+        }
+        policy.execute(() -> { });
+        check(policy.circuitBreaker().state() == CircuitBreaker.State.CLOSED,
+                "no slot or probe lost to Errors (breaker is " + policy.circuitBreaker().state() + ")");
+    }
+
+    private static boolean rejects(CircuitBreaker breaker) {
+        try {
+            breaker.acquirePermission();
+            return false;
+        } catch (IllegalStateException e) {
+            return true;
+        }
+    }
+
+    private static void checkHealthyThroughput() throws InterruptedException {
+        ResiliencePolicy healthyPolicy = policy("healthy");
+        ResiliencePolicy faultyPolicy = policy("faulty");
+        PaymentProcessor healthy = new FaultInjectingGateway(Duration.ofMillis(2), config(healthyPolicy));
+        FaultInjectingGateway faulty = new FaultInjectingGateway(Duration.ofMillis(2), config(faultyPolicy));
+
+        LongAdder[] healthyPayments = {new LongAdder(), new LongAdder(), new LongAdder()};
+        AtomicInteger phase = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(Thread.ofPlatform().daemon().start(() -> {
+                for (long i = 0; running.get(); i++) {
+                    PaymentProcessor target = i % 2 == 0 ? healthy : faulty;
+                    try {
+                        target.processPayment(25);
+                        if (target == healthy) {
+                            healthyPayments[phase.get()].increment();
+                        }
+                    } catch (IllegalStateException e) {
+                        // timed out, rejected by bulkhead or breaker
+                    }
+                }
+            }));
+        }
+
+        for (int p = 0; p < healthyPayments.length; p++) {
+            phase.set(p);
+            faulty.setFault(p == 1 ? FaultInjectingGateway.Fault.HANG : FaultInjectingGateway.Fault.NONE);
+            Thread.sleep(1_000);
+        }
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        long before = healthyPayments[0].sum();
+        long duringHang = healthyPayments[1].sum();
+        check(duringHang * 4 >= before, "healthy throughput collapsed while the other gateway hung ("
+                + duringHang + " vs " + before + " payments)");
+        check(faultyPolicy.circuitBreaker().state() == CircuitBreaker.State.CLOSED,
+                "breaker closes after the gateway recovers (is " + faultyPolicy.circuitBreaker().state() + ")");
+    }
+
+    private static ResiliencePolicy policy(String name) {
+        return ResiliencePolicy.builder(name)
+                .circuitBreaker(5, Duration.ofMillis(300), HALF_OPEN_PROBES)
+                .bulkhead(8, 8, Duration.ofMillis(20))
+                .timeout(Duration.ofMillis(100))
+                .build();
+    }
+
+    private static ProcessorConfig config(ResiliencePolicy policy) {
+        return ProcessorConfig.builder().logSink(NoOpLogSink.INSTANCE).resilience(policy).build();
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new IllegalStateException("ResilienceTest failed: " + description);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.example;
+
+import org.example.metrics.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ Four simulated gateways answer in 5 ms; halfway through, "paypal" degrades to 300 ms.
+ The same client load runs once with plain round robin and once with
+ RoutingPaymentProcessor, and the checkout latency is printed per phase.
+
+ Round robin keeps sending a quarter of the payments to the slow gateway, so its p99
+ jumps to 300 ms. The router notices the slow gateway (latency EWMA and full
+ concurrency limit) and moves traffic to the healthy ones.
+
+ Run: java -cp target/classes org.example.RoutingDemo [clients] [phaseMillis]
+ */
+public class RoutingDemo {
+
+    public static void main(String[] args) throws InterruptedException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        long phaseMillis = args.length > 1 ? Long.parseLong(args[1]) : 2_000;
+
+        System.out.println("Round robin:");
+        SimulatedLatencyGateway[] gateways = gateways();
+        AtomicInteger next = new AtomicInteger();
+        PaymentProcessor roundRobin = amount -> gateways[Math.floorMod(next.getAndIncrement(), gateways.length)].processPayment(amount);
+        run(roundRobin, gateways[2], clients, phaseMillis);
+
+        System.out.println("Latency-aware routing:");
+        SimulatedLatencyGateway[] routed = gateways();
+        RoutingPaymentProcessor router = new RoutingPaymentProcessor(List.of(
+                new RoutingPaymentProcessor.Backend("card", routed[0], 1, 32),
+                new RoutingPaymentProcessor.Backend("debit", routed[1], 1, 32),
+                new RoutingPaymentProcessor.Backend("paypal", routed[2], 1, 32),
+                new RoutingPaymentProcessor.Backend("upi", routed[3], 1, 32)));
+        run(router, routed[2], clients, phaseMillis);
+        router.stats().forEach(s -> System.out.printf("  %-7s routed %6d  saturated %5d  latency ewma %6.1f ms%n",
+                s.name(), s.routed(), s.saturated(), s.latencyEwmaMillis()));
+    }
+
+    private static SimulatedLatencyGateway[] gateways() {
+        SimulatedLatencyGateway[] gateways = new SimulatedLatencyGateway[4];
+        for (int i = 0; i < gateways.length; i++) {
+            gateways[i] = new SimulatedLatencyGateway(Duration.ofMillis(5));
+        }
+        return gateways;
+    }
+
+    private static void run(PaymentProcessor processor, SimulatedLatencyGateway degrading,
+                            int clients, long phaseMillis) throws InterruptedException {
+        for (String phase : new String[]{"healthy", "paypal degraded"}) {
+            if (!phase.equals("healthy")) {
+                degrading.setLatency(Duration.ofMillis(300));
+            }
+            LatencyHistogram latency = new LatencyHistogram();
+            long end = System.nanoTime() + phaseMillis * 1_000_000;
+            try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int c = 0; c < clients; c++) {
+                    pool.execute(() -> {
+                        while (System.nanoTime() < end) {
+                            long start = System.nanoTime();
+                            processor.processPayment(25);
+                            latency.record(System.nanoTime() - start);
+                        }
+                    });
+                }
+            }
+            LatencyHistogram.Snapshot s = latency.snapshot();
+            System.out.printf("  %-16s payments %7d  p50 %6.1f ms  p99 %6.1f ms  max %6.1f ms%n",
+                    phase, s.count(), s.p50Nanos() / 1e6, s.p99Nanos() / 1e6, s.maxNanos() / 1e6);
+        }
+    }
+}
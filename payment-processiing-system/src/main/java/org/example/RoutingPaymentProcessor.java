@@ -0,0 +1,186 @@
+package org.example;
+
+import org.example.resilience.GatewayTimeoutException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ A PaymentProcessor that spreads payments over several backends (card, debit, PayPal, UPI...)
+ and moves traffic away from a backend that gets slow or starts failing.
+
+ For every payment:
+ 1. each backend gets a score: weight * (1 - errorRate) / latency, using the live EWMAs
+    (exponentially weighted moving averages) of its latency and error rate
+ 2. the first backend is drawn at random in proportion to the scores, so a degraded backend
+    still sees a little traffic and is noticed when it recovers
+ 3. if that backend is at its concurrency limit (its calls are piling up because it is slow)
+    or its call throws, the next best backend by score is tried (failover)
+
+ why a concurrency limit per backend: a backend that hangs would otherwise absorb every
+ checkout thread. With the limit only maxConcurrent callers can be stuck on it and the rest
+ go elsewhere right away, which keeps p99 checkout latency stable.
+
+ Failover only happens when the backend definitely did not charge: it was saturated, its
+ breaker or bulkhead rejected the call, or the gateway declined. A call that timed out
+ (GatewayTimeoutException) may still have charged, so it is rethrown instead of being tried
+ on a second gateway - that could charge the same payment twice.
+ Validation errors (IllegalArgumentException) are not retried: the amount is invalid for
+ every backend. Refunds are not routed: they must go to the backend that took the payment.
+ */
+public class RoutingPaymentProcessor implements PaymentProcessor {
+
+    // weight of the newest sample in the EWMAs
+    private static final double ALPHA = 0.1;
+    // added to the latency so a backend without samples does not get an infinite score
+    private static final double LATENCY_FLOOR_NANOS = 50_000;
+    // every backend keeps at least this share of the first choices
+    private static final double MIN_SHARE = 0.001;
+
+    private final Backend[] backends;
+
+    public RoutingPaymentProcessor(List<Backend> backends) {
+        if (backends.isEmpty()) {
+            throw new IllegalArgumentException("At least one backend is required");
+        }
+        this.backends = backends.toArray(new Backend[0]);
+    }
+
+    @Override
+    public void processPayment(Money amount) {
+        Backend[] candidates = rankForPayment();
+        RuntimeException lastFailure = null;
+        for (Backend backend : candidates) {
+            if (!backend.permits.tryAcquire()) {
+                backend.saturated.increment();
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                backend.processor.processPayment(amount);
+                backend.recordSuccess(System.nanoTime() - start);
+                return;
+            } catch (IllegalArgumentException e) {
+                throw e;
+            } catch (GatewayTimeoutException e) {
+                backend.recordFailure(System.nanoTime() - start);
+                throw e;
+            } catch (RuntimeException e) {
+                backend.recordFailure(System.nanoTime() - start);
+                lastFailure = e;
+            } finally {
+                backend.permits.release();
+            }
+        }
+        throw new IllegalStateException("No payment backend could take the payment", lastFailure);
+    }
+
+    // Weighted random first choice, then the other backends from best to worst score.
+    private Backend[] rankForPayment() {
+        int n = backends.length;
+        double[] scores = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            scores[i] = backends[i].score();
+            total += scores[i];
+        }
+        double floor = total * MIN_SHARE;
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            scores[i] = Math.max(scores[i], floor);
+            sum += scores[i];
+        }
+
+        Backend[] ranked = backends.clone();
+        double pick = ThreadLocalRandom.current().nextDouble(sum);
+        int first = n - 1;
+        for (int i = 0; i < n; i++) {
+            pick -= scores[i];
+            if (pick < 0) {
+                first = i;
+                break;
+            }
+        }
+        swap(ranked, scores, 0, first);
+        // n is small (a handful of gateways): insertion sort by score for the failover order
+        for (int i = 2; i < n; i++) {
+            for (int j = i; j > 1 && scores[j] > scores[j - 1]; j--) {
+                swap(ranked, scores, j, j - 1);
+            }
+        }
+        return ranked;
+    }
+
+    private static void swap(Backend[] ranked, double[] scores, int a, int b) {
+        Backend backend = ranked[a];
+        ranked[a] = ranked[b];
+        ranked[b] = backend;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+
+    public List<BackendStats> stats() {
+        List<BackendStats> stats = new ArrayList<>(backends.length);
+        for (Backend backend : backends) {
+            stats.add(new BackendStats(backend.name, backend.routed.sum(), backend.failures.sum(),
+                    backend.saturated.sum(), backend.latencyEwmaNanos / 1_000_000, backend.errorRateEwma));
+        }
+        return stats;
+    }
+
+    public record BackendStats(String name, long routed, long failures, long saturated,
+                               double latencyEwmaMillis, double errorRate) {
+    }
+
+    /*
+     One backend of the router. The EWMAs are plain volatile doubles updated without CAS:
+     two threads updating at once can lose one sample, which does not matter for an average
+     that only has to follow the trend.
+     */
+    public static class Backend {
+
+        private final String name;
+        private final PaymentProcessor processor;
+        private final double weight;
+        private final Semaphore permits;
+        private final LongAdder routed = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder saturated = new LongAdder();
+        private volatile double latencyEwmaNanos;
+        private volatile double errorRateEwma;
+
+        public Backend(String name, PaymentProcessor processor, double weight, int maxConcurrent) {
+            if (weight <= 0) {
+                throw new IllegalArgumentException("weight must be greater than zero");
+            }
+            if (maxConcurrent <= 0) {
+                throw new IllegalArgumentException("maxConcurrent must be greater than zero");
+            }
+            this.name = name;
+            this.processor = processor;
+            this.weight = weight;
+            this.permits = new Semaphore(maxConcurrent);
+        }
+
+        private double score() {
+            return weight * (1 - errorRateEwma) / (latencyEwmaNanos + LATENCY_FLOOR_NANOS);
+        }
+
+        private void recordSuccess(long nanos) {
+            routed.increment();
+            latencyEwmaNanos += ALPHA * (nanos - latencyEwmaNanos);
+            errorRateEwma += ALPHA * (0 - errorRateEwma);
+        }
+
+        private void recordFailure(long nanos) {
+            routed.increment();
+            failures.increment();
+            latencyEwmaNanos += ALPHA * (nanos - latencyEwmaNanos);
+            errorRateEwma += ALPHA * (1 - errorRateEwma);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.example;
+
+import org.example.logging.NoOpLogSink;
+import org.example.metrics.PaymentMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ Stand-in for a remote gateway: every payment just waits for a network latency.
+ Used to show how many payments can be in flight at once, without a real gateway.
+ The latency can be changed while running to simulate a gateway that degrades.
+ It does not print per payment (the point is to run tens of thousands of them).
+ */
+public class SimulatedLatencyGateway extends AbstractRefundablePaymentProcessor {
+
+    private volatile Duration latency;
+    private final LongAdder payments = new LongAdder();
+    private final LongAdder refunds = new LongAdder();
+
+    public SimulatedLatencyGateway(Duration latency) {
+        this(latency, ProcessorConfig.builder().logSink(NoOpLogSink.INSTANCE).build());
+    }
+
+    public SimulatedLatencyGateway(Duration latency, PaymentMetrics metrics) {
+        super(NoOpLogSink.INSTANCE, metrics);
+        this.latency = latency;
+    }
+
+    public SimulatedLatencyGateway(Duration latency, ProcessorConfig config) {
+        super(config);
+        this.latency = latency;
+    }
+
+    @Override
+    protected void executePayment(Money amount) {
+        waitForNetwork();
+        payments.increment();
+    }
+
+    @Override
+    protected void executeRefund(Money amount) {
+        waitForNetwork();
+        refunds.increment();
+    }
+
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    public long paymentCount() {
+        return payments.sum();
+    }
+
+    public long refundCount() {
+        return refunds.sum();
+    }
+
+    private void waitForNetwork() {
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Gateway call interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.example;
+
+import org.example.logging.LogSink;
+import org.example.tokenization.CardToken;
+import org.example.tokenization.CardVault;
+
+import java.lang.management.ManagementFactory;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/*
+ 1. Tokenizes 100,000 cards into a vault that starts small and grows, then the same cards
+    again (served from the fingerprint map).
+ 2. Bytes allocated per charge with logging on: masking the card number per charge (the old
+    "****" + substring) versus CreditCardProcessor with its precomputed masked token.
+    The sink is enabled but drops the line, so only the charge path itself is measured.
+ 3. Reads one card number back out of the vault into a char[] and clears it.
+
+ Run: java -cp target/classes org.example.TokenizationDemo
+ */
+public class TokenizationDemo {
+
+    private static final int CARDS = 100_000;
+    private static final int CHARGES = 5_000_000;
+
+    // enabled, so processors do their logging work, but nothing is formatted or printed
+    private static final LogSink DISCARD = new LogSink() {
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public void log(String template, Money amount, String detail) {
+        }
+
+        @Override
+        public void log(String template, int count, Money total, String detail) {
+        }
+    };
+
+    public static void main(String[] args) {
+        CardVault vault = new CardVault();
+        String[] cardNumbers = new String[CARDS];
+        for (int i = 0; i < CARDS; i++) {
+            cardNumbers[i] = "41111111" + String.format("%08d", i);
+        }
+
+        long start = System.nanoTime();
+        CardToken[] tokens = new CardToken[CARDS];
+        for (int i = 0; i < CARDS; i++) {
+            tokens[i] = vault.tokenize(cardNumbers[i]);
+        }
+        printRate("new cards tokenized", CARDS, start);
+        start = System.nanoTime();
+        for (int i = 0; i < CARDS; i++) {
+            if (vault.tokenize(cardNumbers[i]) != tokens[i]) {
+                throw new IllegalStateException("Card " + i + " got a second token");
+            }
+        }
+        printRate("known cards looked up", CARDS, start);
+        System.out.println("  vault holds " + vault.size() + " cards, e.g. token " + tokens[42]);
+
+        String cardNumber = cardNumbers[7];
+        Money amount = Money.ofMinor(2_500);
+        for (int round = 0; round < 2; round++) {
+            // first round warms up the JIT, second round is the one to read
+            long perCharge = bytesPerCharge(() -> {
+                String maskedCard = "****" + cardNumber.substring(cardNumber.length() - 4);
+                DISCARD.log("Charging {} to {}", amount, maskedCard);
+            });
+            CreditCardProcessor processor = new CreditCardProcessor(tokens[7], ProcessorConfig.builder().logSink(DISCARD).build());
+            long perTokenCharge = bytesPerCharge(() -> processor.processPayment(amount));
+            if (round == 1) {
+                System.out.printf("Bytes allocated per charge: mask per charge %d, CreditCardProcessor with token %d%n",
+                        perCharge, perTokenCharge);
+            }
+        }
+
+        char[] pan = new char[19];
+        int digits = vault.copyPan(tokens[7], pan);
+        System.out.println("copyPan for " + tokens[7] + " matches: " + cardNumber.contentEquals(CharBuffer.wrap(pan, 0, digits)));
+        Arrays.fill(pan, '\0');
+    }
+
+    private static long bytesPerCharge(Runnable charge) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < CHARGES; i++) {
+            charge.run();
+        }
+        return (threads.getCurrentThreadAllocatedBytes() - before) / CHARGES;
+    }
+
+    private static void printRate(String what, long count, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("%,d %s in %.3f s (%,.0f/s)%n", count, what, seconds, count / seconds);
+    }
+}
@@ -1,14 +1,44 @@
 package org.example;
 
-public class UpiPaymentProcessor extends AbstractPaymentProcessor implements Refundable {
+import org.example.logging.LogSink;
+import org.example.metrics.PaymentMetrics;
+
+public class UpiPaymentProcessor extends AbstractRefundablePaymentProcessor {
+
+    public UpiPaymentProcessor() {
+    }
+
+    public UpiPaymentProcessor(LogSink logSink) {
+        super(logSink);
+    }
+
+    public UpiPaymentProcessor(LogSink logSink, PaymentMetrics metrics) {
+        super(logSink, metrics);
+    }
+
+    public UpiPaymentProcessor(ProcessorConfig config) {
+        super(config);
+    }
+
+    @Override
+    public void executePayment(Money amount) {
+        if (logSink.isEnabled()) {
+            logSink.log("Processing UPI payment of {}", amount);
+        }
+    }
 
     @Override
-    public void executePayment(double amount) {
-         System.out.println("Processing UPI payment of $" + amount);
+    protected void executeBatch(Money[] amounts) {
+        Money total = Money.sum(amounts, amounts[0].currency());
+        if (logSink.isEnabled()) {
+            logSink.log("Processing UPI batch of {} payments totalling {}", amounts.length, total);
+        }
     }
 
     @Override
-    public void processRefund(double amount) {
-        System.out.println("Processing UPI refund of $" + amount);
+    protected void executeRefund(Money amount) {
+        if (logSink.isEnabled()) {
+            logSink.log("Processing UPI refund of {}", amount);
+        }
     }
 }
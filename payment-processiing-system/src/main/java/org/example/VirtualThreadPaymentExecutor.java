@@ -0,0 +1,88 @@
+package org.example;
+
+import org.example.resilience.GatewayTimeoutException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ Runs payments asynchronously, one virtual thread per payment.
+
+ Why virtual threads: a real gateway call spends almost all of its time waiting on the
+ network. A blocked virtual thread costs a few hundred bytes of heap instead of a whole
+ platform thread, so tens of thousands of payments can wait at the same time while the
+ processors keep their simple blocking executePayment code.
+
+ Why a limit per processor type: a gateway only accepts so many concurrent requests.
+ Each processor class gets its own Semaphore; when it is used up, further payments of
+ that type wait (on their own virtual thread) without slowing down other types.
+ */
+public class VirtualThreadPaymentExecutor implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<Class<?>, Semaphore> permitsByType = new ConcurrentHashMap<>();
+    private final int maxConcurrentPerProcessorType;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    public VirtualThreadPaymentExecutor(int maxConcurrentPerProcessorType) {
+        if (maxConcurrentPerProcessorType <= 0) {
+            throw new IllegalArgumentException("maxConcurrentPerProcessorType must be greater than zero");
+        }
+        this.maxConcurrentPerProcessorType = maxConcurrentPerProcessorType;
+    }
+
+    /*
+     Returns immediately. The future completes with SUCCESS, REJECTED (validation failed),
+     FAILED (executePayment threw) or UNKNOWN (the gateway timed out, may have charged) - it
+     never completes exceptionally for a payment error.
+     */
+    public CompletableFuture<PaymentResult> submit(PaymentProcessor processor, Money amount) {
+        Semaphore permits = permitsByType.computeIfAbsent(processor.getClass(),
+                type -> new Semaphore(maxConcurrentPerProcessorType));
+        return CompletableFuture.supplyAsync(() -> runWithPermit(processor, permits, amount), executor);
+    }
+
+    private PaymentResult runWithPermit(PaymentProcessor processor, Semaphore permits, Money amount) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return PaymentResult.failed(amount, "Interrupted while waiting for a " + processor.getClass().getSimpleName() + " slot");
+        }
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            processor.processPayment(amount);
+            return PaymentResult.success(amount);
+        } catch (IllegalArgumentException e) {
+            return PaymentResult.rejected(amount, e.getMessage());
+        } catch (GatewayTimeoutException e) {
+            return PaymentResult.unknown(amount, e.getMessage());
+        } catch (RuntimeException e) {
+            return PaymentResult.failed(amount, e.getMessage());
+        } finally {
+            inFlight.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    // Highest number of payments that were executing at the same time.
+    public int peakInFlight() {
+        return peakInFlight.get();
+    }
+
+    // Waits for submitted payments to finish.
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
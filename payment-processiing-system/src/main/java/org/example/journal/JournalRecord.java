@@ -0,0 +1,10 @@
+package org.example.journal;
+
+import org.example.Money;
+
+/*
+ One journal entry. paymentId is the sequence number of the intent the record belongs to
+ (for an intent it is its own sequence). source is the processor that wrote it.
+ */
+public record JournalRecord(long sequence, RecordType type, long paymentId, Money amount, String source) {
+}
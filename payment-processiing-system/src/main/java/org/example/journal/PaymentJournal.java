@@ -0,0 +1,470 @@
+package org.example.journal;
+
+import org.example.Money;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/*
+ Append-only write-ahead journal of payments and refunds on local disk.
+
+ Write path (group commit):
+ - a checkout thread encodes its record, gets the next sequence number and adds the record
+   to the pending list (under a short lock, so sequence order == file order)
+ - one flusher thread takes everything pending, writes it with a single gathering
+   FileChannel.write and calls force() once for the whole group
+ - threads that need durability (logIntent) wait until the flushed sequence passes theirs
+ While one fsync runs, the next group fills up, so with many concurrent checkouts one fsync
+ covers many payments - that is what makes tens of thousands of durable payments per
+ second possible on a disk that only does a few thousand fsyncs per second.
+
+ Outcome records (logOutcome) do not wait: if they are lost in a crash, recovery reports
+ the payment as in doubt, which is the safe direction.
+
+ File format, per record: int payloadLength, int CRC32C of the payload, then the payload
+ (long sequence, byte type, long paymentId, long minorUnits, 3 byte currency code,
+ short sourceLength, source bytes). Segments are files payments-00000001.journal, ...;
+ a new one is started when the current one would grow past segmentSizeBytes (at group
+ boundaries, so one group is never split). Opening the journal replays all segments
+ (RecoveryReport) and starts writing into a new segment, so a torn tail of the previous
+ run is never appended to.
+
+ Retention: checkpoint() deletes the oldest segments once every intent in them has an
+ outcome, so reopening only replays what recovery still needs. An intent left in doubt by a
+ crash is resolved by checking it with the gateway and writing its outcome with logOutcome;
+ until then it keeps its segment (and every later one).
+ */
+public class PaymentJournal implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "payments-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int HEADER_BYTES = 8;
+    private static final int FIXED_PAYLOAD_BYTES = 8 + 1 + 8 + 8 + 3 + 2;
+    private static final int MAX_PAYLOAD_BYTES = FIXED_PAYLOAD_BYTES + Short.MAX_VALUE;
+
+    private final Path directory;
+    private final long segmentSizeBytes;
+    private final RecoveryReport recoveryReport;
+    private final Map<String, byte[]> encodedSources = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Condition durableAdvanced = lock.newCondition();
+    // guarded by lock
+    private List<ByteBuffer> pending = new ArrayList<>();
+    private long lastSequence;
+    private long durableSequence;
+    private IOException failure;
+    private boolean closing;
+
+    // only used by the flusher thread
+    private FileChannel segment;
+    private int segmentIndex;
+    private long segmentBytes;
+    private final Thread flusher;
+
+    private final LongAdder groupCommits = new LongAdder();
+    private final LongAdder recordsWritten = new LongAdder();
+
+    public PaymentJournal(Path directory, long segmentSizeBytes) throws IOException {
+        if (segmentSizeBytes <= HEADER_BYTES + MAX_PAYLOAD_BYTES) {
+            throw new IllegalArgumentException("segmentSizeBytes is too small: " + segmentSizeBytes);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSizeBytes = segmentSizeBytes;
+        List<Path> existing = segmentFiles(directory);
+        this.recoveryReport = replay(existing, null);
+        this.lastSequence = recoveryReport.lastSequence();
+        this.durableSequence = lastSequence;
+        this.segmentIndex = existing.isEmpty() ? 0 : segmentIndex(existing.get(existing.size() - 1));
+        openNextSegment();
+        this.flusher = Thread.ofPlatform().name("payment-journal-flusher").daemon().start(this::flushLoop);
+    }
+
+    // What was found on disk when this journal was opened.
+    public RecoveryReport recoveryReport() {
+        return recoveryReport;
+    }
+
+    /*
+     Writes an intent and returns once it is on disk. The returned sequence is the payment id
+     used for its outcome record.
+     */
+    public long logIntent(RecordType type, String source, Money amount) {
+        requireIntent(type, true);
+        byte[] sourceBytes = encode(source);
+        long sequence;
+        lock.lock();
+        try {
+            sequence = enqueue(type, 0, amount, sourceBytes);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(sequence);
+        return sequence;
+    }
+
+    // One intent per amount with a single wait for the whole batch; ids in the same order.
+    public long[] logIntents(RecordType type, String source, Money[] amounts) {
+        requireIntent(type, true);
+        byte[] sourceBytes = encode(source);
+        long[] ids = new long[amounts.length];
+        lock.lock();
+        try {
+            for (int i = 0; i < amounts.length; i++) {
+                ids[i] = enqueue(type, 0, amounts[i], sourceBytes);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (ids.length > 0) {
+            awaitDurable(ids[ids.length - 1]);
+        }
+        return ids;
+    }
+
+    // Queues an outcome; it becomes durable with the next group commit (does not wait).
+    public void logOutcome(RecordType type, long paymentId, String source, Money amount) {
+        requireIntent(type, false);
+        byte[] sourceBytes = encode(source);
+        lock.lock();
+        try {
+            enqueue(type, paymentId, amount, sourceBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Waits until everything written so far is on disk.
+    public void sync() {
+        long sequence;
+        lock.lock();
+        try {
+            sequence = lastSequence;
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(sequence);
+    }
+
+    /*
+     Deletes the oldest segments that recovery no longer needs: every intent in them, and in
+     every older one, has an outcome. Outcomes that are not on disk yet count as missing, so
+     a segment is kept rather than dropped too early. The segment being written and the
+     newest segment with records are always kept, so sequence numbers continue after a
+     restart. Reads every remaining segment; call it now and then, not per payment.
+     Returns the number of segments deleted.
+     */
+    public int checkpoint() throws IOException {
+        List<Path> segments = segmentFiles(directory);
+        long[] lastSequences = new long[segments.size()];
+        RecoveryReport state = replay(segments, lastSequences);
+        long firstOpenIntent = state.inDoubt().isEmpty() ? Long.MAX_VALUE : state.inDoubt().get(0).sequence();
+        int newestWithRecords = -1;
+        for (int i = 0; i < lastSequences.length; i++) {
+            if (lastSequences[i] > 0) {
+                newestWithRecords = i;
+            }
+        }
+        // the last listed segment is the one being written (or an even newer one exists)
+        int deleted = 0;
+        while (deleted < segments.size() - 1 && deleted < newestWithRecords
+                && lastSequences[deleted] < firstOpenIntent) {
+            Files.delete(segments.get(deleted));
+            deleted++;
+        }
+        if (deleted > 0) {
+            forceDirectory();
+        }
+        return deleted;
+    }
+
+    public long groupCommits() {
+        return groupCommits.sum();
+    }
+
+    public long recordsWritten() {
+        return recordsWritten.sum();
+    }
+
+    // Flushes what is pending and stops the flusher; safe to call more than once.
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closing = true;
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            segment.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // must hold lock
+    private long enqueue(RecordType type, long paymentId, Money amount, byte[] source) {
+        if (failure != null) {
+            throw new IllegalStateException("Payment journal failed earlier", failure);
+        }
+        if (closing) {
+            throw new IllegalStateException("Payment journal is closed");
+        }
+        long sequence = ++lastSequence;
+        pending.add(encodeRecord(sequence, type, type.isIntent() ? sequence : paymentId, amount, source));
+        workAvailable.signal();
+        return sequence;
+    }
+
+    private void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw new IllegalStateException("Payment journal write failed", failure);
+                }
+                durableAdvanced.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        List<ByteBuffer> spare = new ArrayList<>();
+        while (true) {
+            List<ByteBuffer> group;
+            long groupLastSequence;
+            lock.lock();
+            try {
+                while (pending.isEmpty() && !closing) {
+                    workAvailable.awaitUninterruptibly();
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                group = pending;
+                pending = spare;
+                groupLastSequence = lastSequence;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                writeAndForce(group);
+            } catch (IOException e) {
+                error = e;
+            }
+            group.clear();
+            spare = group;
+
+            lock.lock();
+            try {
+                if (error != null) {
+                    failure = error;
+                    closing = true;
+                } else {
+                    durableSequence = groupLastSequence;
+                }
+                durableAdvanced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (error != null) {
+                return;
+            }
+        }
+    }
+
+    private void writeAndForce(List<ByteBuffer> group) throws IOException {
+        long groupBytes = 0;
+        for (ByteBuffer record : group) {
+            groupBytes += record.remaining();
+        }
+        if (segmentBytes > 0 && segmentBytes + groupBytes > segmentSizeBytes) {
+            segment.close();
+            openNextSegment();
+        }
+        ByteBuffer[] buffers = group.toArray(new ByteBuffer[0]);
+        long remaining = groupBytes;
+        while (remaining > 0) {
+            remaining -= segment.write(buffers);
+        }
+        segment.force(false);
+        segmentBytes += groupBytes;
+        groupCommits.increment();
+        recordsWritten.add(group.size());
+    }
+
+    private void openNextSegment() throws IOException {
+        segmentIndex++;
+        segment = FileChannel.open(directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, segmentIndex, SEGMENT_SUFFIX)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentBytes = 0;
+        forceDirectory();
+    }
+
+    // makes the new file's directory entry durable; not supported on every platform
+    private void forceDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // e.g. Windows cannot open a directory as a channel
+        }
+    }
+
+    private byte[] encode(String source) {
+        byte[] bytes = encodedSources.computeIfAbsent(source, s -> s.getBytes(StandardCharsets.UTF_8));
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal source name is too long");
+        }
+        return bytes;
+    }
+
+    private static void requireIntent(RecordType type, boolean intent) {
+        if (type.isIntent() != intent) {
+            throw new IllegalArgumentException(type + (intent ? " is not an intent" : " is not an outcome"));
+        }
+    }
+
+    private static ByteBuffer encodeRecord(long sequence, RecordType type, long paymentId, Money amount, byte[] source) {
+        int payloadLength = FIXED_PAYLOAD_BYTES + source.length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payloadLength);
+        buffer.putInt(payloadLength).putInt(0)
+                .putLong(sequence)
+                .put((byte) type.ordinal())
+                .putLong(paymentId)
+                .putLong(amount.minorUnits());
+        String currency = amount.currency().getCurrencyCode();
+        for (int i = 0; i < 3; i++) {
+            buffer.put((byte) currency.charAt(i));
+        }
+        buffer.putShort((short) source.length).put(source);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), HEADER_BYTES, payloadLength);
+        buffer.putInt(4, (int) crc.getValue());
+        return buffer.flip();
+    }
+
+    /*
+     Reads every segment in order and pairs intents with outcomes. Reading a segment stops
+     at the first record that is cut off or fails its CRC; the rest of that segment is
+     counted as discarded.
+     */
+    public static RecoveryReport replay(Path directory) throws IOException {
+        return replay(segmentFiles(directory), null);
+    }
+
+    // lastSequences, if not null, receives the highest sequence read from each segment (0 if none)
+    private static RecoveryReport replay(List<Path> segments, long[] lastSequences) throws IOException {
+        Map<Long, JournalRecord> openIntents = new LinkedHashMap<>();
+        Map<String, Currency> currencies = new ConcurrentHashMap<>();
+        long records = 0;
+        long lastSequence = 0;
+        long discarded = 0;
+        byte[] payload = new byte[MAX_PAYLOAD_BYTES];
+        CRC32C crc = new CRC32C();
+
+        for (int s = 0; s < segments.size(); s++) {
+            Path file = segments.get(s);
+            long remaining = Files.size(file);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+                while (remaining > 0) {
+                    if (remaining < HEADER_BYTES) {
+                        break;
+                    }
+                    int length = in.readInt();
+                    int expectedCrc = in.readInt();
+                    if (length < FIXED_PAYLOAD_BYTES || length > MAX_PAYLOAD_BYTES || length > remaining - HEADER_BYTES) {
+                        break;
+                    }
+                    in.readFully(payload, 0, length);
+                    crc.reset();
+                    crc.update(payload, 0, length);
+                    if ((int) crc.getValue() != expectedCrc) {
+                        break;
+                    }
+                    remaining -= HEADER_BYTES + length;
+
+                    JournalRecord record = decode(ByteBuffer.wrap(payload, 0, length), currencies);
+                    records++;
+                    lastSequence = Math.max(lastSequence, record.sequence());
+                    if (lastSequences != null) {
+                        lastSequences[s] = Math.max(lastSequences[s], record.sequence());
+                    }
+                    if (record.type().isIntent()) {
+                        openIntents.put(record.sequence(), record);
+                    } else {
+                        openIntents.remove(record.paymentId());
+                    }
+                }
+            } catch (EOFException e) {
+                // cut off inside a record: handled as discarded below
+            }
+            discarded += remaining;
+        }
+        return new RecoveryReport(segments.size(), records, lastSequence,
+                List.copyOf(openIntents.values()), discarded);
+    }
+
+    private static JournalRecord decode(ByteBuffer payload, Map<String, Currency> currencies) {
+        long sequence = payload.getLong();
+        RecordType type = RecordType.fromCode(payload.get());
+        long paymentId = payload.getLong();
+        long minorUnits = payload.getLong();
+        byte[] currencyCode = new byte[3];
+        payload.get(currencyCode);
+        Currency currency = currencies.computeIfAbsent(new String(currencyCode, StandardCharsets.US_ASCII), Currency::getInstance);
+        byte[] source = new byte[payload.getShort()];
+        payload.get(source);
+        return new JournalRecord(sequence, type, paymentId, Money.of(minorUnits, currency),
+                new String(source, StandardCharsets.UTF_8));
+    }
+
+    private static List<Path> segmentFiles(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> {
+                        String name = f.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static int segmentIndex(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
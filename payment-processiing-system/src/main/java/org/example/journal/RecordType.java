@@ -0,0 +1,45 @@
+package org.example.journal;
+
+/*
+ Kinds of journal records. An intent is written (and made durable) before the gateway is
+ called; the outcome after it returns. An intent without an outcome after a crash means
+ the payment is in doubt: it may or may not have been charged.
+ */
+public enum RecordType {
+    PAYMENT_INTENT,
+    PAYMENT_COMPLETED,
+    PAYMENT_FAILED,
+    REFUND_INTENT,
+    REFUND_COMPLETED,
+    REFUND_FAILED;
+
+    private static final RecordType[] VALUES = values();
+
+    public boolean isIntent() {
+        return this == PAYMENT_INTENT || this == REFUND_INTENT;
+    }
+
+    // The outcome types belonging to an intent.
+    public RecordType completed() {
+        return switch (this) {
+            case PAYMENT_INTENT -> PAYMENT_COMPLETED;
+            case REFUND_INTENT -> REFUND_COMPLETED;
+            default -> throw new IllegalStateException(this + " is not an intent");
+        };
+    }
+
+    public RecordType failed() {
+        return switch (this) {
+            case PAYMENT_INTENT -> PAYMENT_FAILED;
+            case REFUND_INTENT -> REFUND_FAILED;
+            default -> throw new IllegalStateException(this + " is not an intent");
+        };
+    }
+
+    static RecordType fromCode(byte code) {
+        if (code < 0 || code >= VALUES.length) {
+            throw new IllegalArgumentException("Unknown record type code " + code);
+        }
+        return VALUES[code];
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.journal;
+
+import java.util.List;
+
+/*
+ What PaymentJournal found on disk when it was opened.
+ inDoubt: intents without an outcome, in sequence order - these payments/refunds may have
+ reached the gateway before the crash and have to be checked with it. Once the result is
+ known, write it with PaymentJournal.logOutcome so the intent stops being reported and
+ checkpoint can retire its segment.
+ discardedBytes: a torn or corrupt tail (a crash in the middle of a write) that was ignored.
+ */
+public record RecoveryReport(int segments, long records, long lastSequence,
+                             List<JournalRecord> inDoubt, long discardedBytes) {
+}
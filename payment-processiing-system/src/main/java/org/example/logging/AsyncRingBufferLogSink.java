@@ -0,0 +1,139 @@
+package org.example.logging;
+
+import org.example.Money;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ Hands log lines to a background thread through a fixed size ring buffer.
+
+ Why: with ConsoleLogSink every payment thread waits on the same synchronized System.out.
+ Here a payment thread only claims a slot, copies the template reference and the raw values
+ into it and returns. Formatting and printing happen on one consumer thread, which writes
+ whole runs of lines before flushing.
+
+ How it works (no locks on the payment path):
+ - claimed: next sequence to hand out. Producers CAS it forward, but only while the buffer
+   has room (claimed - consumed < capacity).
+ - published[slot]: sequence + 1 once the producer has filled the slot. The consumer only
+   reads a slot after seeing that value, so it never sees half written fields.
+ - consumed: sequences below it are printed and their slots can be reused.
+
+ When the buffer is full the line is dropped and counted (droppedCount()) instead of
+ blocking the payment - losing a log line is better than slowing down checkout.
+ */
+public class AsyncRingBufferLogSink implements LogSink, AutoCloseable {
+
+    private static final long IDLE_PARK_NANOS = 100_000;
+
+    private final int mask;
+    private final String[] templates;
+    private final int[] counts;
+    private final Money[] amounts;
+    private final String[] details;
+    private final AtomicLongArray published;
+
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+
+    private final PrintStream out;
+    private final Thread consumer;
+    private volatile boolean running = true;
+
+    public AsyncRingBufferLogSink(int capacity) {
+        this(capacity, System.out);
+    }
+
+    // capacity must be a power of two so a sequence maps to its slot with a mask
+    public AsyncRingBufferLogSink(int capacity, PrintStream out) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two, got " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.templates = new String[capacity];
+        this.counts = new int[capacity];
+        this.amounts = new Money[capacity];
+        this.details = new String[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.out = out;
+        this.consumer = Thread.ofPlatform().name("payment-log-writer").daemon().start(this::drainLoop);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void log(String template, Money amount, String detail) {
+        publish(template, LogFormat.NO_COUNT, amount, detail);
+    }
+
+    @Override
+    public void log(String template, int count, Money total, String detail) {
+        publish(template, count, total, detail);
+    }
+
+    private void publish(String template, int count, Money amount, String detail) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed.get() > mask) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) sequence & mask;
+        templates[slot] = template;
+        counts[slot] = count;
+        amounts[slot] = amount;
+        details[slot] = detail;
+        published.set(slot, sequence + 1);
+    }
+
+    private void drainLoop() {
+        StringBuilder line = new StringBuilder(128);
+        long next = consumed.get();
+        while (true) {
+            int slot = (int) next & mask;
+            if (published.get(slot) == next + 1) {
+                line.setLength(0);
+                LogFormat.appendTo(line, templates[slot], counts[slot], amounts[slot], details[slot]);
+                templates[slot] = null;
+                amounts[slot] = null;
+                details[slot] = null;
+                out.append(line).append(System.lineSeparator());
+                consumed.lazySet(++next);
+            } else if (!running && next == claimed.get()) {
+                out.flush();
+                return;
+            } else {
+                // nothing ready: push what we have printed so far and wait a little
+                out.flush();
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    // Lines dropped because the buffer was full.
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    // Prints what is still buffered and stops the background thread.
+    @Override
+    public void close() {
+        running = false;
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
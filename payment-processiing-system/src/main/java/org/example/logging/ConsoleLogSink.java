@@ -0,0 +1,47 @@
+package org.example.logging;
+
+import org.example.Money;
+
+import java.io.PrintStream;
+
+/*
+ Prints every line right away on the calling thread - the old behaviour of the processors.
+ The wording is not byte for byte the old one: amounts print as Money ("100.00 USD", not
+ "$100.0") and since placeholders are filled amount first, the card line reads
+ "Charging 100.00 USD to ****1111" instead of "Charging ****1111 for $100.0".
+ Fine for demos; under load the synchronized PrintStream becomes the bottleneck, use
+ AsyncRingBufferLogSink there.
+ */
+public class ConsoleLogSink implements LogSink {
+
+    private final PrintStream out;
+
+    public ConsoleLogSink() {
+        this(System.out);
+    }
+
+    public ConsoleLogSink(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void log(String template, Money amount, String detail) {
+        print(template, LogFormat.NO_COUNT, amount, detail);
+    }
+
+    @Override
+    public void log(String template, int count, Money total, String detail) {
+        print(template, count, total, detail);
+    }
+
+    private void print(String template, int count, Money amount, String detail) {
+        StringBuilder line = new StringBuilder(template.length() + 32);
+        LogFormat.appendTo(line, template, count, amount, detail);
+        out.println(line);
+    }
+}
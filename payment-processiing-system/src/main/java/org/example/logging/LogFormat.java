@@ -0,0 +1,29 @@
+package org.example.logging;
+
+import org.example.Money;
+
+// Fills the {} placeholders of a LogSink template. Shared by the sinks that actually print.
+final class LogFormat {
+
+    // marks "no count argument" for the single payment log calls
+    static final int NO_COUNT = -1;
+
+    private LogFormat() {
+    }
+
+    static void appendTo(StringBuilder out, String template, int count, Money amount, String detail) {
+        int argument = count == NO_COUNT ? 1 : 0;
+        int from = 0;
+        int placeholder;
+        while ((placeholder = template.indexOf("{}", from)) >= 0) {
+            out.append(template, from, placeholder);
+            switch (argument++) {
+                case 0 -> out.append(count);
+                case 1 -> amount.appendTo(out);
+                default -> out.append(detail);
+            }
+            from = placeholder + 2;
+        }
+        out.append(template, from, template.length());
+    }
+}
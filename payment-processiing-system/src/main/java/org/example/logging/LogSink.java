@@ -0,0 +1,34 @@
+package org.example.logging;
+
+import org.example.Money;
+
+/*
+ Where processors send their log lines.
+
+ Why templates instead of String concatenation: "Charging " + card + " for $" + amount
+ builds a new String on every payment even when nobody reads it. Here the caller passes a
+ constant template ("Charging {} to {}") plus the raw values, and the sink decides if and
+ when to format them (Money is written with Money.appendTo). An async sink formats on its
+ own thread, off the payment path.
+
+ Placeholders are filled in order: count (batch calls only), then amount, then detail.
+
+ Callers on a hot path should check isEnabled() first so a disabled sink costs one call.
+ */
+public interface LogSink {
+
+    boolean isEnabled();
+
+    // detail may be null when the template has no second placeholder
+    void log(String template, Money amount, String detail);
+
+    void log(String template, int count, Money total, String detail);
+
+    default void log(String template, Money amount) {
+        log(template, amount, null);
+    }
+
+    default void log(String template, int count, Money total) {
+        log(template, count, total, null);
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.logging;
+
+import org.example.Money;
+
+// Logging switched off. isEnabled() is false, so processors skip the log call entirely.
+public final class NoOpLogSink implements LogSink {
+
+    public static final NoOpLogSink INSTANCE = new NoOpLogSink();
+
+    private NoOpLogSink() {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void log(String template, Money amount, String detail) {
+    }
+
+    @Override
+    public void log(String template, int count, Money total, String detail) {
+    }
+}
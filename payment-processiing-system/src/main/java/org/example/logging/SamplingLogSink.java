@@ -0,0 +1,48 @@
+package org.example.logging;
+
+import org.example.Money;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ Passes on only every Nth line to another sink. Keeps a trace of what the processors are
+ doing at high volume without paying for every line. Lines that are skipped are never
+ formatted.
+ */
+public class SamplingLogSink implements LogSink {
+
+    private final LogSink delegate;
+    private final int everyNth;
+    private final AtomicLong seen = new AtomicLong();
+
+    public SamplingLogSink(LogSink delegate, int everyNth) {
+        if (everyNth <= 0) {
+            throw new IllegalArgumentException("everyNth must be greater than zero");
+        }
+        this.delegate = delegate;
+        this.everyNth = everyNth;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return delegate.isEnabled();
+    }
+
+    @Override
+    public void log(String template, Money amount, String detail) {
+        if (sampled()) {
+            delegate.log(template, amount, detail);
+        }
+    }
+
+    @Override
+    public void log(String template, int count, Money total, String detail) {
+        if (sampled()) {
+            delegate.log(template, count, total, detail);
+        }
+    }
+
+    private boolean sampled() {
+        return seen.getAndIncrement() % everyNth == 0;
+    }
+}
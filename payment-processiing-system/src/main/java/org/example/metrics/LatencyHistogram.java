@@ -0,0 +1,108 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ Latency histogram in nanoseconds with HDR-style buckets.
+
+ Why not store every sample: a busy gateway records millions of latencies. Fixed buckets keep
+ memory constant (960 counters) and recording is one counter increment.
+
+ Why a LongAdder per bucket and not one AtomicLongArray: under load most samples land in a
+ few hot buckets, and every recording thread would CAS the same array slot. A LongAdder
+ spreads a contended bucket over per-thread cells, while an uncontended one stays a single
+ field, so memory only grows for the buckets that are actually hot.
+
+ Bucket layout (log-linear, like HdrHistogram): values below 32 get their own bucket; above
+ that every power of two range is split into 16 equal buckets. A reported percentile is the
+ upper edge of its bucket, so it is at most ~6% above the real value, from nanoseconds up
+ to hours.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets[indexOf(nanos)].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /*
+     Reads the counters without stopping writers, so a snapshot taken under load can be off
+     by the few samples recorded while it was being read.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        long max = maxNanos.get();
+        long mean = total == 0 ? 0 : totalNanos.sum() / Math.max(1, count.sum());
+        return new Snapshot(total, mean,
+                percentile(counts, total, 0.50, max),
+                percentile(counts, total, 0.90, max),
+                percentile(counts, total, 0.99, max),
+                percentile(counts, total, 0.999, max),
+                max);
+    }
+
+    private static long percentile(long[] counts, long total, double percentile, long max) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperEdge(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int indexOf(long nanos) {
+        if (nanos < LINEAR_LIMIT) {
+            return (int) nanos;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(nanos);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        int subBucket = (int) (nanos >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperEdge(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowerEdge = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowerEdge + (1L << shift) - 1;
+    }
+
+    public record Snapshot(long count, long meanNanos, long p50Nanos, long p90Nanos,
+                           long p99Nanos, long p999Nanos, long maxNanos) {
+    }
+}
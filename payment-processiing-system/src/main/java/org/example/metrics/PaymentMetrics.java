@@ -0,0 +1,103 @@
+package org.example.metrics;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ Registry of StageMetrics per processor class and Stage.
+
+ One instance is shared by all processors of an application. A processor asks for its
+ StageMetrics once (in its constructor) and then records into them directly, so the
+ payment path never touches the map.
+ */
+public class PaymentMetrics implements AutoCloseable {
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final Map<Class<?>, StageMetrics[]> byProcessorType = new ConcurrentHashMap<>();
+    private ScheduledExecutorService dumpScheduler;
+
+    // Indexed by Stage.ordinal(); processors of the same class share the same entries.
+    public StageMetrics[] forProcessor(Class<?> processorType) {
+        return byProcessorType.computeIfAbsent(processorType, type -> {
+            StageMetrics[] stages = new StageMetrics[STAGES.length];
+            for (int i = 0; i < stages.length; i++) {
+                stages[i] = new StageMetrics();
+            }
+            return stages;
+        });
+    }
+
+    // One entry per processor type and stage that has been called at least once.
+    public List<StageSnapshot> snapshot() {
+        List<StageSnapshot> snapshots = new ArrayList<>();
+        byProcessorType.forEach((type, stages) -> {
+            for (Stage stage : STAGES) {
+                StageMetrics metrics = stages[stage.ordinal()];
+                if (metrics.calls() > 0) {
+                    snapshots.add(new StageSnapshot(type.getSimpleName(), stage,
+                            metrics.calls(), metrics.failures(), metrics.latency()));
+                }
+            }
+        });
+        snapshots.sort(Comparator.comparing(StageSnapshot::processor).thenComparing(StageSnapshot::stage));
+        return snapshots;
+    }
+
+    public String report() {
+        StringBuilder report = new StringBuilder(String.format("%-26s %-9s %10s %8s %10s %10s %10s %10s %10s%n",
+                "processor", "stage", "calls", "failed", "mean us", "p50 us", "p99 us", "p99.9 us", "max us"));
+        for (StageSnapshot s : snapshot()) {
+            LatencyHistogram.Snapshot latency = s.latency();
+            report.append(String.format("%-26s %-9s %10d %8d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    s.processor(), s.stage(), s.calls(), s.failures(),
+                    micros(latency.meanNanos()), micros(latency.p50Nanos()), micros(latency.p99Nanos()),
+                    micros(latency.p999Nanos()), micros(latency.maxNanos())));
+        }
+        return report.toString();
+    }
+
+    // Prints report() every interval on a background thread until close().
+    public synchronized void startPeriodicDump(Duration interval, PrintStream out) {
+        if (dumpScheduler != null) {
+            throw new IllegalStateException("Periodic dump already started");
+        }
+        dumpScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "payment-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        dumpScheduler.scheduleAtFixedRate(() -> out.print(report()), millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (dumpScheduler != null) {
+            dumpScheduler.shutdownNow();
+            try {
+                // a dump that is printing right now finishes before close returns
+                dumpScheduler.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dumpScheduler = null;
+        }
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1_000.0;
+    }
+
+    public record StageSnapshot(String processor, Stage stage, long calls, long failures,
+                                LatencyHistogram.Snapshot latency) {
+    }
+}
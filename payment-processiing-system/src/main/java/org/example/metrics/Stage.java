@@ -0,0 +1,9 @@
+package org.example.metrics;
+
+// Steps of the payment and refund templates that are timed separately.
+public enum Stage {
+    VALIDATE,
+    LOG,
+    EXECUTE,
+    REFUND
+}
@@ -0,0 +1,38 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ Counters and latencies of one stage of one processor type.
+ LongAdder keeps a counter per contending thread, so many payment threads can count
+ without fighting over one cache line; the parts are only added up when read.
+ */
+public class StageMetrics {
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public void record(long nanos) {
+        calls.increment();
+        latency.record(nanos);
+    }
+
+    // the stage threw; its time still counts, a slow failing gateway is what we look for
+    public void recordFailure(long nanos) {
+        failures.increment();
+        record(nanos);
+    }
+
+    public long calls() {
+        return calls.sum();
+    }
+
+    public long failures() {
+        return failures.sum();
+    }
+
+    public LatencyHistogram.Snapshot latency() {
+        return latency.snapshot();
+    }
+}
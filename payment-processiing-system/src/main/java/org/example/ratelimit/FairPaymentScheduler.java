@@ -0,0 +1,211 @@
+package org.example.ratelimit;
+
+import org.example.Money;
+import org.example.PaymentResult;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/*
+ Weighted fair queuing of payments by merchant (deficit round robin).
+
+ Payments wait in one queue per merchant; `concurrency` worker (virtual) threads take them
+ round robin over the merchants that have something queued. A merchant with weight w gets
+ w payments per round, so with weights 1 and 3 and both busy, the second one gets 75% of
+ the processor. A merchant that queues 10,000 payments at once only delays the others by
+ one round, not by 10,000 payments as a single FIFO queue would.
+
+ maxQueuedPerMerchant bounds each queue: beyond it submit returns REJECTED right away
+ instead of letting one merchant fill the memory. Queues exist only while they hold
+ payments, so idle merchants cost nothing here.
+
+ One lock guards the queues; it is held only to add or take a payment, never while the
+ payment runs.
+ */
+public class FairPaymentScheduler implements AutoCloseable {
+
+    private final int maxQueuedPerMerchant;
+    private final Map<String, Integer> weights = new ConcurrentHashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    // guarded by lock
+    private final Map<String, MerchantQueue> queues = new HashMap<>();
+    private final ArrayDeque<MerchantQueue> round = new ArrayDeque<>();
+    private int queued;
+    private boolean closed;
+
+    public FairPaymentScheduler(int concurrency, int maxQueuedPerMerchant) {
+        if (concurrency <= 0 || maxQueuedPerMerchant <= 0) {
+            throw new IllegalArgumentException("concurrency and maxQueuedPerMerchant must be positive");
+        }
+        this.maxQueuedPerMerchant = maxQueuedPerMerchant;
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(Thread.ofVirtual().name("fair-payment-worker-", i).start(this::work));
+        }
+    }
+
+    // Payments per round for the merchant (default 1).
+    public void setWeight(String merchantId, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight must be at least 1");
+        }
+        weights.put(merchantId, weight);
+    }
+
+    // Queues the payment; the future completes with its result once a worker has run it.
+    public CompletableFuture<PaymentResult> submit(String merchantId, Money amount, Supplier<PaymentResult> payment) {
+        return submit(merchantId, amount, payment, null);
+    }
+
+    /*
+     Like submit, but runs onRejected (if not null, outside the lock) when the payment is
+     turned away because the scheduler is closed or the merchant's queue is full, e.g. to
+     give back a rate limit permit the payment had already taken.
+     */
+    public CompletableFuture<PaymentResult> submit(String merchantId, Money amount, Supplier<PaymentResult> payment,
+                                                   Runnable onRejected) {
+        Job job = new Job(amount, payment, new CompletableFuture<>());
+        String rejection = enqueue(merchantId, job);
+        if (rejection == null) {
+            return job.future;
+        }
+        if (onRejected != null) {
+            onRejected.run();
+        }
+        return CompletableFuture.completedFuture(PaymentResult.rejected(amount, rejection));
+    }
+
+    // null when queued, otherwise why the job was turned away
+    private String enqueue(String merchantId, Job job) {
+        lock.lock();
+        try {
+            if (closed) {
+                return "Scheduler is closed";
+            }
+            MerchantQueue queue = queues.get(merchantId);
+            if (queue == null) {
+                queue = new MerchantQueue(merchantId, weights.getOrDefault(merchantId, 1));
+                queues.put(merchantId, queue);
+                round.addLast(queue);
+            } else if (queue.jobs.size() >= maxQueuedPerMerchant) {
+                return "Too many queued payments for merchant " + merchantId;
+            }
+            queue.jobs.addLast(job);
+            queued++;
+            notEmpty.signal();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Lets the workers finish what is queued, then stops them.
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void work() {
+        while (true) {
+            Job job = take();
+            if (job == null) {
+                return;
+            }
+            PaymentResult result;
+            try {
+                result = job.payment.get();
+            } catch (RuntimeException e) {
+                result = PaymentResult.failed(job.amount, e.getMessage());
+            } catch (VirtualMachineError e) {
+                // out of memory, stack overflow...: the JVM is broken, let the worker die
+                job.future.completeExceptionally(e);
+                throw e;
+            } catch (Throwable t) {
+                // any other Error: fail this payment but keep the worker, or the scheduler would
+                // lose one unit of concurrency for good and this future would never complete
+                job.future.completeExceptionally(t);
+                continue;
+            }
+            job.future.complete(result);
+        }
+    }
+
+    // null once closed and drained
+    private Job take() {
+        lock.lock();
+        try {
+            while (queued == 0) {
+                if (closed) {
+                    return null;
+                }
+                notEmpty.awaitUninterruptibly();
+            }
+            MerchantQueue queue = round.peekFirst();
+            if (queue.deficit == 0) {
+                // the merchant's turn starts: it may send `weight` payments
+                queue.deficit = queue.weight;
+            }
+            Job job = queue.jobs.pollFirst();
+            queue.deficit--;
+            queued--;
+            if (queue.jobs.isEmpty()) {
+                round.pollFirst();
+                queues.remove(queue.merchantId);
+            } else if (queue.deficit == 0) {
+                round.addLast(round.pollFirst());
+            }
+            return job;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class MerchantQueue {
+        private final String merchantId;
+        private final int weight;
+        private final ArrayDeque<Job> jobs = new ArrayDeque<>();
+        // payments the merchant may still send in its current turn
+        private int deficit;
+
+        private MerchantQueue(String merchantId, int weight) {
+            this.merchantId = merchantId;
+            this.weight = weight;
+        }
+    }
+
+    private record Job(Money amount, Supplier<PaymentResult> payment, CompletableFuture<PaymentResult> future) {
+    }
+}
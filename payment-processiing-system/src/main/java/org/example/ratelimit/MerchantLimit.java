@@ -0,0 +1,14 @@
+package org.example.ratelimit;
+
+/*
+ Rate limit of one merchant: on average permitsPerSecond payments, with bursts of up to
+ burst payments at once after a quiet period.
+ */
+public record MerchantLimit(double permitsPerSecond, int burst) {
+
+    public MerchantLimit {
+        if (!(permitsPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond must be > 0 and burst >= 1");
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/*
+ Token bucket per merchant, so one merchant sending too fast is turned away without
+ slowing down the others.
+
+ Each bucket is one long (GCRA, the "virtual scheduling" form of a token bucket): the time
+ at which the bucket will be full again. A payment is allowed if that time is at most
+ burst - 1 intervals in the future, and then pushes it one interval further. One CAS on one
+ field per payment, no lock, no refill thread, no allocation.
+
+ Buckets live in a ConcurrentHashMap (lock-free reads), created on the first payment of a
+ merchant. A bucket whose time has passed is full, exactly like a new one, so evictIdle can
+ drop them to keep the map small when many merchants come and go.
+ */
+public class MerchantRateLimiter {
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, MerchantLimit> limits = new ConcurrentHashMap<>();
+    private final MerchantLimit defaultLimit;
+
+    public MerchantRateLimiter(MerchantLimit defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    // Overrides the default limit for one merchant; its bucket starts full.
+    public void setLimit(String merchantId, MerchantLimit limit) {
+        limits.put(merchantId, limit);
+        buckets.remove(merchantId);
+    }
+
+    public boolean tryAcquire(String merchantId) {
+        long now = System.nanoTime();
+        Bucket bucket = buckets.get(merchantId);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(merchantId, m -> new Bucket(limits.getOrDefault(m, defaultLimit), now));
+        }
+        return bucket.tryAcquire(now);
+    }
+
+    /*
+     Gives back a permit taken by tryAcquire for a payment that was then turned away before it
+     ran (e.g. its queue was full), so the refusal does not also use up the merchant's rate.
+     */
+    public void release(String merchantId) {
+        Bucket bucket = buckets.get(merchantId);
+        if (bucket != null) {
+            bucket.release(System.nanoTime());
+        }
+    }
+
+    /*
+     Removes the buckets that are full again and returns how many were removed. A payment
+     racing with the removal of its bucket may get one extra permit.
+     */
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private static final class Bucket {
+        // field updater instead of an AtomicLong: one object less per merchant
+        private static final AtomicLongFieldUpdater<Bucket> FULL_AT =
+                AtomicLongFieldUpdater.newUpdater(Bucket.class, "fullAt");
+
+        private final long intervalNanos;
+        private final long burstNanos;
+        private volatile long fullAt;
+
+        private Bucket(MerchantLimit limit, long now) {
+            this.intervalNanos = Math.max(1, Math.round(1e9 / limit.permitsPerSecond()));
+            this.burstNanos = intervalNanos * (limit.burst() - 1);
+            this.fullAt = now;
+        }
+
+        private boolean tryAcquire(long now) {
+            long current;
+            long start;
+            do {
+                current = fullAt;
+                start = current - now > 0 ? current : now;
+                if (start - now > burstNanos) {
+                    return false;
+                }
+            } while (!FULL_AT.compareAndSet(this, current, start + intervalNanos));
+            return true;
+        }
+
+        // never further back than now: a full bucket stays full, it does not grow beyond burst
+        private void release(long now) {
+            long current;
+            long previous;
+            do {
+                current = fullAt;
+                if (current - now <= 0) {
+                    return;
+                }
+                previous = current - intervalNanos - now > 0 ? current - intervalNanos : now;
+            } while (!FULL_AT.compareAndSet(this, current, previous));
+        }
+
+        private boolean isFull(long now) {
+            return fullAt - now <= 0;
+        }
+    }
+}
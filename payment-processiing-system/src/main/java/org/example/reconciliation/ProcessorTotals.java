@@ -0,0 +1,15 @@
+package org.example.reconciliation;
+
+import org.example.Money;
+
+/*
+ End-of-day totals of one processor in one currency.
+ fullyRefunded / partiallyRefunded count payments, not refunds.
+ */
+public record ProcessorTotals(String processor, Money captured, Money refunded,
+                              long payments, long fullyRefunded, long partiallyRefunded) {
+
+    public Money net() {
+        return captured.minus(refunded);
+    }
+}
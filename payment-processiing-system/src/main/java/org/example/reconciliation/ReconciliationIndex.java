@@ -0,0 +1,255 @@
+package org.example.reconciliation;
+
+import org.example.Money;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ In-memory index of captured payments and what has been refunded on each of them, so a
+ refund is checked against the payment it reverses when it is made instead of in an
+ offline reconciliation query.
+
+ Payment ids are handed out here (1, 2, 3, ...), which lets the index store payments in
+ flat arrays instead of a map: payment id -> chunk (id >> 16) -> slot. Per payment that is
+ one long captured, one long refunded, an int processor and a Currency reference - about
+ 24 bytes, no objects per payment, so millions of payments stay cheap to keep and to scan.
+
+ - recordCapture: writes the slot and publishes it with a volatile write of captured
+ - reserveRefund: O(1) lookup plus a CAS loop on the payment's refunded amount; two
+   concurrent partial refunds can never together exceed what was captured
+ - releaseRefund: gives a reserved amount back when the gateway refund definitely failed
+   (not after a timeout: the refund may have gone through)
+ - totals / writeReport: stream over all slots without building a list of payments
+ */
+public class ReconciliationIndex {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_CHUNKS = 1 << 15;
+
+    private final AtomicLong lastPaymentId = new AtomicLong();
+    private final AtomicReferenceArray<Chunk> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final Map<String, Integer> processorIds = new ConcurrentHashMap<>();
+    private final List<String> processorNames = new CopyOnWriteArrayList<>();
+
+    // Returns the new payment's id, to be passed to reserveRefund later.
+    public long recordCapture(String processor, Money amount) {
+        if (amount == null || !amount.isPositive()) {
+            throw new IllegalArgumentException("Amount must be greater than zero");
+        }
+        int processorId = processorId(processor);
+        long paymentId = lastPaymentId.incrementAndGet();
+        long slot = paymentId - 1;
+        if (slot >= (long) MAX_CHUNKS * CHUNK_SIZE) {
+            throw new IllegalStateException("Reconciliation index is full");
+        }
+        Chunk chunk = chunk((int) (slot >>> CHUNK_BITS));
+        int index = (int) slot & (CHUNK_SIZE - 1);
+        chunk.processor[index] = processorId;
+        chunk.currency[index] = amount.currency();
+        // volatile write last: a reader that sees captured != 0 also sees the two fields above
+        chunk.captured.set(index, amount.minorUnits());
+        return paymentId;
+    }
+
+    public RefundDecision reserveRefund(long paymentId, Money amount) {
+        if (amount == null || !amount.isPositive()) {
+            throw new IllegalArgumentException("Amount must be greater than zero");
+        }
+        Chunk chunk = existingChunk(paymentId);
+        int index = (int) (paymentId - 1) & (CHUNK_SIZE - 1);
+        long captured = chunk == null ? 0 : chunk.captured.get(index);
+        if (captured == 0) {
+            return RefundDecision.UNKNOWN_PAYMENT;
+        }
+        if (chunk.currency[index] != amount.currency()) {
+            return RefundDecision.CURRENCY_MISMATCH;
+        }
+        long minorUnits = amount.minorUnits();
+        long refunded;
+        do {
+            refunded = chunk.refunded.get(index);
+            if (minorUnits > captured - refunded) {
+                return RefundDecision.OVER_REFUND;
+            }
+        } while (!chunk.refunded.compareAndSet(index, refunded, refunded + minorUnits));
+        return RefundDecision.ACCEPTED;
+    }
+
+    // Undoes an ACCEPTED reserveRefund whose refund did not go through.
+    public void releaseRefund(long paymentId, Money amount) {
+        Chunk chunk = existingChunk(paymentId);
+        int index = (int) (paymentId - 1) & (CHUNK_SIZE - 1);
+        if (chunk == null || chunk.captured.get(index) == 0) {
+            throw new IllegalArgumentException("Unknown payment " + paymentId);
+        }
+        chunk.refunded.addAndGet(index, -amount.minorUnits());
+    }
+
+    // What can still be refunded on the payment.
+    public Money refundable(long paymentId) {
+        Chunk chunk = existingChunk(paymentId);
+        int index = (int) (paymentId - 1) & (CHUNK_SIZE - 1);
+        long captured = chunk == null ? 0 : chunk.captured.get(index);
+        if (captured == 0) {
+            throw new IllegalArgumentException("Unknown payment " + paymentId);
+        }
+        return Money.of(captured - chunk.refunded.get(index), chunk.currency[index]);
+    }
+
+    public long paymentCount() {
+        return lastPaymentId.get();
+    }
+
+    /*
+     Totals per processor and currency. Runs while payments and refunds continue: every
+     payment is read consistently enough to be counted once, but the totals are not one
+     point in time; take them after the day is closed for exact figures.
+     */
+    public List<ProcessorTotals> totals() {
+        int processors = processorNames.size();
+        // per currency: [processor][captured, refunded, payments, fully, partially]
+        Map<Currency, long[][]> sums = new HashMap<>();
+        Currency lastCurrency = null;
+        long[][] lastSums = null;
+
+        long count = lastPaymentId.get();
+        for (long slot = 0; slot < count; slot++) {
+            Chunk chunk = chunks.get((int) (slot >>> CHUNK_BITS));
+            int index = (int) slot & (CHUNK_SIZE - 1);
+            long captured = chunk == null ? 0 : chunk.captured.get(index);
+            if (captured == 0) {
+                continue; // id handed out, capture not published yet
+            }
+            Currency currency = chunk.currency[index];
+            if (currency != lastCurrency) {
+                lastSums = sums.computeIfAbsent(currency, c -> new long[processors][5]);
+                lastCurrency = currency;
+            }
+            int processor = chunk.processor[index];
+            if (processor >= lastSums.length) {
+                continue; // processor registered after the scan started
+            }
+            long refunded = chunk.refunded.get(index);
+            long[] row = lastSums[processor];
+            row[0] += captured;
+            row[1] += refunded;
+            row[2]++;
+            if (refunded == captured) {
+                row[3]++;
+            } else if (refunded > 0) {
+                row[4]++;
+            }
+        }
+
+        List<ProcessorTotals> totals = new ArrayList<>();
+        sums.forEach((currency, perProcessor) -> {
+            for (int p = 0; p < perProcessor.length; p++) {
+                long[] row = perProcessor[p];
+                if (row[2] > 0) {
+                    totals.add(new ProcessorTotals(processorNames.get(p), Money.of(row[0], currency),
+                            Money.of(row[1], currency), row[2], row[3], row[4]));
+                }
+            }
+        });
+        return totals;
+    }
+
+    /*
+     Writes one CSV line per payment (id,processor,captured,refunded,currency) to out,
+     reusing one StringBuilder, so a report over millions of payments needs no more memory
+     than one line. Wrap out in a BufferedWriter.
+     */
+    public void writeReport(Writer out) {
+        StringBuilder line = new StringBuilder(64);
+        long count = lastPaymentId.get();
+        try {
+            out.write("payment_id,processor,captured,refunded,currency\n");
+            for (long slot = 0; slot < count; slot++) {
+                Chunk chunk = chunks.get((int) (slot >>> CHUNK_BITS));
+                int index = (int) slot & (CHUNK_SIZE - 1);
+                long captured = chunk == null ? 0 : chunk.captured.get(index);
+                if (captured == 0) {
+                    continue;
+                }
+                Currency currency = chunk.currency[index];
+                line.setLength(0);
+                line.append(slot + 1).append(',')
+                        .append(processorNames.get(chunk.processor[index])).append(',');
+                appendMinorUnits(line, captured, currency).append(',');
+                appendMinorUnits(line, chunk.refunded.get(index), currency).append(',')
+                        .append(currency.getCurrencyCode()).append('\n');
+                out.append(line);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static StringBuilder appendMinorUnits(StringBuilder line, long minorUnits, Currency currency) {
+        int digits = Math.max(currency.getDefaultFractionDigits(), 0);
+        if (digits == 0) {
+            return line.append(minorUnits);
+        }
+        long scale = 1;
+        for (int i = 0; i < digits; i++) {
+            scale *= 10;
+        }
+        line.append(minorUnits / scale).append('.');
+        String fraction = Long.toString(minorUnits % scale);
+        for (int i = fraction.length(); i < digits; i++) {
+            line.append('0');
+        }
+        return line.append(fraction);
+    }
+
+    private int processorId(String processor) {
+        Integer id = processorIds.get(processor);
+        if (id != null) {
+            return id;
+        }
+        synchronized (processorNames) {
+            return processorIds.computeIfAbsent(processor, p -> {
+                processorNames.add(p);
+                return processorNames.size() - 1;
+            });
+        }
+    }
+
+    private Chunk chunk(int chunkIndex) {
+        Chunk chunk = chunks.get(chunkIndex);
+        if (chunk == null) {
+            chunks.compareAndSet(chunkIndex, null, new Chunk());
+            chunk = chunks.get(chunkIndex);
+        }
+        return chunk;
+    }
+
+    private Chunk existingChunk(long paymentId) {
+        if (paymentId < 1 || paymentId > lastPaymentId.get()) {
+            return null;
+        }
+        return chunks.get((int) ((paymentId - 1) >>> CHUNK_BITS));
+    }
+
+    private static final class Chunk {
+        // 0 until the payment is published; a capture is always > 0
+        private final AtomicLongArray captured = new AtomicLongArray(CHUNK_SIZE);
+        private final AtomicLongArray refunded = new AtomicLongArray(CHUNK_SIZE);
+        private final int[] processor = new int[CHUNK_SIZE];
+        private final Currency[] currency = new Currency[CHUNK_SIZE];
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.reconciliation;
+
+/*
+ Answer of ReconciliationIndex.reserveRefund. Only ACCEPTED reserves the amount; every other
+ decision leaves the payment unchanged.
+ */
+public enum RefundDecision {
+    ACCEPTED,
+    UNKNOWN_PAYMENT,
+    CURRENCY_MISMATCH,
+    OVER_REFUND;
+
+    public boolean isAccepted() {
+        return this == ACCEPTED;
+    }
+}
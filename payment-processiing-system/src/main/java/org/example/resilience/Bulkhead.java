@@ -0,0 +1,64 @@
+package org.example.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ Limits how many calls can run against one processor at the same time.
+
+ Up to maxConcurrent calls run; up to maxQueued more may wait at most maxQueueWait for a
+ slot. Anything beyond that is rejected immediately. So a slow gateway can tie up at most
+ maxConcurrent + maxQueued caller threads - the rest of checkout keeps its threads.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final Semaphore permits;
+    private final int maxQueued;
+    private final long maxQueueWaitNanos;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    public Bulkhead(String name, int maxConcurrent, int maxQueued, Duration maxQueueWait) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be greater than zero");
+        }
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("maxQueued must not be negative");
+        }
+        this.name = name;
+        this.permits = new Semaphore(maxConcurrent);
+        this.maxQueued = maxQueued;
+        this.maxQueueWaitNanos = maxQueueWait.toNanos();
+    }
+
+    // Takes a slot or throws IllegalStateException; every successful acquire needs a release().
+    public void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            throw new IllegalStateException("Bulkhead " + name + " is full");
+        }
+        try {
+            if (!permits.tryAcquire(maxQueueWaitNanos, TimeUnit.NANOSECONDS)) {
+                throw new IllegalStateException("Bulkhead " + name + ": no slot within " + maxQueueWaitNanos / 1_000_000 + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for bulkhead " + name, e);
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int availableSlots() {
+        return permits.availablePermits();
+    }
+}
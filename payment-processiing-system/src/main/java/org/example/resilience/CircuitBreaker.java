@@ -0,0 +1,207 @@
+package org.example.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ Stops calling a processor that keeps failing, and tries it again carefully later.
+
+ - CLOSED: calls go through. failureThreshold failures in a row open the breaker.
+ - OPEN: calls are rejected right away (no waiting on a dead gateway) for openDuration.
+ - HALF_OPEN: after openDuration up to halfOpenProbes calls are let through as probes.
+   If they all succeed the breaker closes again; one failing probe opens it again.
+
+ State changes are CAS on one AtomicLong, so no lock is taken on the payment path.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    // probe counts have 16 bits each in the state word
+    private static final int MAX_HALF_OPEN_PROBES = 0xFFFF;
+    private static final long GENERATION_MASK = (1L << 30) - 1;
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+
+    /*
+     Everything the decisions depend on in one word, so it changes in a single CAS:
+     state (bits 62-63), generation (bits 32-61, +1 on every state change), started half open
+     probes (bits 16-31) and succeeded ones (bits 0-15). A probe can only be counted against
+     the half open phase it saw, and an outcome only counts in the generation its call was
+     admitted in (see Permit).
+     */
+    private final AtomicLong word = new AtomicLong(pack(State.CLOSED, 0, 0, 0));
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAtNanos;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration, int halfOpenProbes) {
+        if (failureThreshold <= 0 || halfOpenProbes <= 0) {
+            throw new IllegalArgumentException("failureThreshold and halfOpenProbes must be greater than zero");
+        }
+        if (halfOpenProbes > MAX_HALF_OPEN_PROBES) {
+            throw new IllegalArgumentException("halfOpenProbes must be at most " + MAX_HALF_OPEN_PROBES);
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    /*
+     Throws IllegalStateException when the call must not go through. Otherwise the returned
+     permit must be handed back exactly once: to onSuccess or onFailure when the call ran,
+     to releasePermission when it never did.
+     */
+    public Permit acquirePermission() {
+        while (true) {
+            long current = word.get();
+            State state = stateOf(current);
+            if (state == State.CLOSED) {
+                return new Permit(generationOf(current), false);
+            }
+            long next;
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAtNanos < openNanos) {
+                    throw new IllegalStateException("Circuit breaker " + name + " is open");
+                }
+                // this call becomes the first probe of the new half open phase
+                next = pack(State.HALF_OPEN, generationOf(current) + 1, 1, 0);
+            } else {
+                if (startedOf(current) >= halfOpenProbes) {
+                    throw new IllegalStateException("Circuit breaker " + name + " is half open, probes in progress");
+                }
+                next = current + (1L << 16);
+            }
+            if (word.compareAndSet(current, next)) {
+                return new Permit(generationOf(next), true);
+            }
+        }
+    }
+
+    /*
+     For a call that got permission but never ran (e.g. the bulkhead rejected it), so a
+     half open probe slot is not lost. Only frees a slot of the phase the permit was taken in.
+     */
+    public void releasePermission(Permit permit) {
+        if (!permit.probe) {
+            return;
+        }
+        while (true) {
+            long current = word.get();
+            if (!isPhaseOf(current, permit, State.HALF_OPEN)
+                    || word.compareAndSet(current, current - (1L << 16))) {
+                return;
+            }
+        }
+    }
+
+    /*
+     A success closes the breaker only if it is one of the current half open probes; a slow
+     call admitted before the breaker opened says nothing about the gateway now.
+     */
+    public void onSuccess(Permit permit) {
+        if (!permit.probe) {
+            if (isPhaseOf(word.get(), permit, State.CLOSED) && consecutiveFailures.get() != 0) {
+                consecutiveFailures.set(0);
+            }
+            return;
+        }
+        while (true) {
+            long current = word.get();
+            if (!isPhaseOf(current, permit, State.HALF_OPEN)) {
+                return;
+            }
+            long next;
+            if (succeededOf(current) + 1 >= halfOpenProbes) {
+                // only counted while CLOSED, so resetting it before the CAS is harmless
+                consecutiveFailures.set(0);
+                next = pack(State.CLOSED, generationOf(current) + 1, 0, 0);
+            } else {
+                next = current + 1;
+            }
+            if (word.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    // Like onSuccess, a failure only counts in the phase its call was admitted in.
+    public void onFailure(Permit permit) {
+        long current = word.get();
+        if (isPhaseOf(current, permit, State.HALF_OPEN)
+                || (isPhaseOf(current, permit, State.CLOSED)
+                && consecutiveFailures.incrementAndGet() >= failureThreshold)) {
+            open(current);
+        }
+    }
+
+    /*
+     The time is set before OPEN is published, so a caller that sees OPEN never reads an old
+     openedAtNanos. Only the phase seen in observed is left; if another thread changed the
+     state in the meantime, its change wins.
+     */
+    private void open(long observed) {
+        openedAtNanos = System.nanoTime();
+        long generation = generationOf(observed);
+        State from = stateOf(observed);
+        while (true) {
+            long current = word.get();
+            if (stateOf(current) != from || generationOf(current) != generation
+                    || word.compareAndSet(current, pack(State.OPEN, generation + 1, 0, 0))) {
+                return;
+            }
+        }
+    }
+
+    private static boolean isPhaseOf(long word, Permit permit, State state) {
+        return stateOf(word) == state && generationOf(word) == permit.generation;
+    }
+
+    private static long pack(State state, long generation, int started, int succeeded) {
+        return ((long) state.ordinal() << 62) | ((generation & GENERATION_MASK) << 32)
+                | ((long) started << 16) | succeeded;
+    }
+
+    private static State stateOf(long word) {
+        return State.values()[(int) (word >>> 62)];
+    }
+
+    private static long generationOf(long word) {
+        return (word >>> 32) & GENERATION_MASK;
+    }
+
+    private static int startedOf(long word) {
+        return (int) (word >>> 16) & 0xFFFF;
+    }
+
+    private static int succeededOf(long word) {
+        return (int) word & 0xFFFF;
+    }
+
+    public State state() {
+        return stateOf(word.get());
+    }
+
+    /*
+     Proof of admission: remembers the generation (and whether it is a half open probe) the
+     call was admitted in, so its outcome is judged against that phase and not against
+     whatever state the breaker is in when a slow call finally returns.
+     */
+    public static final class Permit {
+        private final long generation;
+        private final boolean probe;
+
+        private Permit(long generation, boolean probe) {
+            this.generation = generation;
+            this.probe = probe;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.resilience;
+
+/*
+ The caller stopped waiting for a gateway call that had already started (timeout, or the
+ waiting thread was interrupted). Unlike a rejection or a decline, the outcome is unknown:
+ the gateway may ignore the interrupt and still charge. So it must not be treated as
+ "not charged" - no retry with a new charge, no failover to another gateway, no refund
+ reservation given back - until the payment has been checked with the gateway.
+
+ It is an IllegalStateException so code that only cares about "did not succeed" keeps
+ working; code that records outcomes catches it first.
+ */
+public class GatewayTimeoutException extends IllegalStateException {
+
+    public GatewayTimeoutException(String message) {
+        super(message);
+    }
+
+    public GatewayTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,185 @@
+package org.example.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/*
+ Guards the gateway call of one processor: circuit breaker -> bulkhead -> timeout.
+ Every part is optional. It holds state (open breaker, busy slots), so each processor
+ needs its own instance.
+
+ Order of the checks:
+ 1. circuit breaker: an open breaker rejects at once, without using a bulkhead slot
+ 2. bulkhead: bounded concurrency with a short bounded queue
+ 3. timeout: the call runs on a virtual thread and the caller waits at most timeout.
+    A call that times out is interrupted, counts as a failure for the breaker, and keeps
+    its bulkhead slot until it really ends, so a hung gateway can never have more than
+    maxConcurrent calls stuck on it.
+
+ Rejections are thrown as IllegalStateException: the gateway was never called. A timeout
+ is thrown as GatewayTimeoutException, because the gateway may still have carried the call
+ out; callers must treat it as in doubt, not as declined.
+ */
+public class ResiliencePolicy {
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Duration timeout;
+
+    private ResiliencePolicy(Builder builder) {
+        this.circuitBreaker = builder.circuitBreaker;
+        this.bulkhead = builder.bulkhead;
+        this.timeout = builder.timeout;
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public void execute(Runnable call) {
+        execute(null, call);
+    }
+
+    /*
+     Like execute(call), but runs beforeCall (if not null) on the caller's thread once the
+     breaker and the bulkhead have admitted the call, before it starts and outside the
+     timeout. A rejected call never runs beforeCall. If beforeCall throws, the call does not
+     run, the permission and the slot are given back and the breaker does not count it.
+     Every admitted call settles its breaker permit in a finally, so nothing thrown (not even
+     an Error) can leak a bulkhead slot or a half open probe slot.
+     */
+    public void execute(Runnable beforeCall, Runnable call) {
+        CircuitBreaker.Permit permit = circuitBreaker == null ? null : circuitBreaker.acquirePermission();
+        // the permit is settled in the finally, whatever is thrown (an Error included)
+        boolean started = false;
+        boolean succeeded = false;
+        try {
+            if (bulkhead != null) {
+                bulkhead.acquire();
+            }
+            try {
+                if (beforeCall != null) {
+                    beforeCall.run();
+                }
+            } catch (Throwable t) {
+                if (bulkhead != null) {
+                    bulkhead.release();
+                }
+                throw t;
+            }
+            // from here the slot is released by whoever runs the call
+            started = true;
+            if (timeout == null) {
+                runAndRelease(call);
+            } else {
+                runWithTimeout(call);
+            }
+            succeeded = true;
+        } finally {
+            if (permit != null) {
+                if (!started) {
+                    circuitBreaker.releasePermission(permit);
+                } else if (succeeded) {
+                    circuitBreaker.onSuccess(permit);
+                } else {
+                    circuitBreaker.onFailure(permit);
+                }
+            }
+        }
+    }
+
+    private void runAndRelease(Runnable call) {
+        try {
+            call.run();
+        } finally {
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    private void runWithTimeout(Runnable call) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Thread worker;
+        try {
+            worker = Thread.ofVirtual().start(() -> {
+                try {
+                    runAndRelease(call);
+                    done.complete(null);
+                } catch (Throwable t) {
+                    done.completeExceptionally(t);
+                }
+            });
+        } catch (Throwable t) {
+            // the worker never ran, so nobody else releases the slot
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+            throw t;
+        }
+        try {
+            done.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            worker.interrupt();
+            throw new GatewayTimeoutException("Gateway call timed out after " + timeout.toMillis()
+                    + " ms, outcome unknown");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            worker.interrupt();
+            Thread.currentThread().interrupt();
+            throw new GatewayTimeoutException("Interrupted while waiting for the gateway, outcome unknown", e);
+        }
+    }
+
+    public CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Bulkhead bulkhead() {
+        return bulkhead;
+    }
+
+    public static class Builder {
+
+        private final String name;
+        private CircuitBreaker circuitBreaker;
+        private Bulkhead bulkhead;
+        private Duration timeout;
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        public Builder circuitBreaker(int failureThreshold, Duration openDuration, int halfOpenProbes) {
+            this.circuitBreaker = new CircuitBreaker(name, failureThreshold, openDuration, halfOpenProbes);
+            return this;
+        }
+
+        public Builder bulkhead(int maxConcurrent, int maxQueued, Duration maxQueueWait) {
+            this.bulkhead = new Bulkhead(name, maxConcurrent, maxQueued, maxQueueWait);
+            return this;
+        }
+
+        public Builder timeout(Duration timeout) {
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("timeout must be positive");
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
+        public ResiliencePolicy build() {
+            return new ResiliencePolicy(this);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.tokenization;
+
+/*
+ Stand-in for a card number: a 64 bit value that only means something to the CardVault
+ that issued it, plus the masked form ("****1111") built once when the card was tokenized,
+ so logging a charge does not build a string per payment. toString() is the masked form,
+ so a token can be logged or printed without leaking the card number.
+ */
+public final class CardToken {
+
+    private final long value;
+    private final String masked;
+
+    CardToken(long value, String masked) {
+        this.value = value;
+        this.masked = masked;
+    }
+
+    public long value() {
+        return value;
+    }
+
+    public String masked() {
+        return masked;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CardToken other && other.value == value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return masked;
+    }
+}
@@ -0,0 +1,213 @@
+package org.example.tokenization;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ Turns card numbers (PANs) into CardTokens and keeps the numbers themselves off the Java
+ heap, so they do not sit in String fields of processors, in heap dumps or in logs.
+
+ Storage: a PAN has at most 19 digits, which fits into one unsigned 64 bit number. Every
+ card gets a 16 byte slot in direct (off-heap) ByteBuffers of 4096 slots each:
+   long  PAN as a number, XORed with a random per-vault key
+   int   token tag (random; a token whose tag does not match its slot is rejected)
+   byte  number of digits (leading zeros count)
+ The XOR only keeps the digits from being readable in a memory dump of the process; it is
+ not encryption. A production vault would keep the key in an HSM.
+
+ Lookup: tokenizing the same card again returns the same token. The map behind that is
+ keyed by a keyed 64 bit fingerprint of the PAN (not by the PAN), and a hit is checked
+ against the stored digits, so a fingerprint collision cannot hand out the wrong card.
+
+ The only way back to the digits is copyPan into a caller-owned char[] (for the gateway
+ call), which the caller should clear afterwards.
+
+ Growth: like a real token vault it keeps every card it has seen (a token must stay
+ valid), so it grows by one 64 KiB chunk at a time instead of having a fixed capacity.
+ Existing chunks never move, and taking a new chunk locks only the rare thread that
+ stores the first card of that chunk.
+ */
+public final class CardVault {
+
+    private static final int SLOT_BYTES = 16;
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+    private static final int MIN_DIGITS = 8;
+    private static final int MAX_DIGITS = 19;
+    private static final int MASKED_DIGITS = 4;
+
+    // vault used by the processor constructors that still take the card number as a String
+    private static final CardVault SHARED = new CardVault();
+
+    // chunk i holds slots i * CHUNK_SLOTS ..; grown by copying the array, guarded by growLock
+    private volatile ByteBuffer[] chunks;
+    private final Object growLock = new Object();
+    private final AtomicInteger usedSlots = new AtomicInteger();
+    private final Map<Long, CardToken> tokensByFingerprint = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final long storageKey = random.nextLong();
+    private final long fingerprintKey = random.nextLong();
+
+    public CardVault() {
+        this(CHUNK_SLOTS);
+    }
+
+    // initialCapacity: cards stored before the vault has to grow
+    public CardVault(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity must be positive");
+        }
+        ByteBuffer[] initial = new ByteBuffer[(initialCapacity + CHUNK_SLOTS - 1) >>> CHUNK_SHIFT];
+        for (int i = 0; i < initial.length; i++) {
+            initial[i] = ByteBuffer.allocateDirect(CHUNK_SLOTS * SLOT_BYTES);
+        }
+        this.chunks = initial;
+    }
+
+    public static CardVault shared() {
+        return SHARED;
+    }
+
+    /*
+     Returns the token for the card number (digits only, 8 to 19 of them). Accepts any
+     CharSequence so callers holding the number in a char[] can pass CharBuffer.wrap(chars)
+     and clear the array afterwards instead of creating a String.
+     */
+    public CardToken tokenize(CharSequence pan) {
+        int digits = pan.length();
+        if (digits < MIN_DIGITS || digits > MAX_DIGITS) {
+            throw new IllegalArgumentException("Card number must have " + MIN_DIGITS + " to " + MAX_DIGITS + " digits");
+        }
+        long packed = pack(pan);
+        long fingerprint = fingerprint(packed, digits);
+        CardToken token = tokensByFingerprint.computeIfAbsent(fingerprint, f -> store(packed, digits));
+        int slot = slotOf(token);
+        if (storedPan(slot) != packed || storedDigits(slot) != digits) {
+            throw new IllegalStateException("Card fingerprint collision");
+        }
+        return token;
+    }
+
+    /*
+     Writes the card number of the token into out (length >= 19) and returns the number of
+     digits written. Clear out when done.
+     */
+    public int copyPan(CardToken token, char[] out) {
+        int slot = slotOf(token);
+        long packed = storedPan(slot);
+        int digits = storedDigits(slot);
+        if (out.length < digits) {
+            throw new IllegalArgumentException("out must hold " + digits + " characters");
+        }
+        for (int i = digits - 1; i >= 0; i--) {
+            out[i] = (char) ('0' + Long.remainderUnsigned(packed, 10));
+            packed = Long.divideUnsigned(packed, 10);
+        }
+        return digits;
+    }
+
+    public int size() {
+        return usedSlots.get();
+    }
+
+    // Called once per new card, inside computeIfAbsent.
+    private CardToken store(long packed, int digits) {
+        int slot = usedSlots.getAndIncrement();
+        if (slot < 0) {
+            usedSlots.decrementAndGet();
+            throw new IllegalStateException("Card vault is full (" + Integer.MAX_VALUE + " cards)");
+        }
+        ByteBuffer chunk = chunkForNewSlot(slot);
+        int tag = random.nextInt();
+        int offset = offset(slot);
+        chunk.putLong(offset, packed ^ storageKey);
+        chunk.putInt(offset + 8, tag);
+        chunk.put(offset + 12, (byte) digits);
+        return new CardToken(((long) tag << 32) | slot, mask(packed));
+    }
+
+    private ByteBuffer chunkForNewSlot(int slot) {
+        int index = slot >>> CHUNK_SHIFT;
+        ByteBuffer[] current = chunks;
+        if (index < current.length) {
+            return current[index];
+        }
+        synchronized (growLock) {
+            current = chunks;
+            if (index >= current.length) {
+                ByteBuffer[] grown = Arrays.copyOf(current, index + 1);
+                for (int i = current.length; i < grown.length; i++) {
+                    grown[i] = ByteBuffer.allocateDirect(CHUNK_SLOTS * SLOT_BYTES);
+                }
+                chunks = grown;
+                current = grown;
+            }
+            return current[index];
+        }
+    }
+
+    private int slotOf(CardToken token) {
+        long value = token.value();
+        int slot = (int) value;
+        ByteBuffer[] current = chunks;
+        if (slot < 0 || slot >= usedSlots.get() || (slot >>> CHUNK_SHIFT) >= current.length
+                || current[slot >>> CHUNK_SHIFT].getInt(offset(slot) + 8) != (int) (value >>> 32)) {
+            throw new IllegalArgumentException("Token " + token + " was not issued by this vault");
+        }
+        return slot;
+    }
+
+    private long storedPan(int slot) {
+        return chunks[slot >>> CHUNK_SHIFT].getLong(offset(slot)) ^ storageKey;
+    }
+
+    private int storedDigits(int slot) {
+        return chunks[slot >>> CHUNK_SHIFT].get(offset(slot) + 12);
+    }
+
+    private static int offset(int slot) {
+        return (slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES;
+    }
+
+    private static long pack(CharSequence pan) {
+        long packed = 0;
+        for (int i = 0; i < pan.length(); i++) {
+            char c = pan.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Card number must contain digits only");
+            }
+            // 19 digits stay below 2^64, so this never overflows as an unsigned number
+            packed = packed * 10 + (c - '0');
+        }
+        return packed;
+    }
+
+    // "****" + last four digits, built once per card
+    private static String mask(long packed) {
+        char[] masked = {'*', '*', '*', '*', '0', '0', '0', '0'};
+        for (int i = masked.length - 1; i >= masked.length - MASKED_DIGITS; i--) {
+            masked[i] = (char) ('0' + Long.remainderUnsigned(packed, 10));
+            packed = Long.divideUnsigned(packed, 10);
+        }
+        return new String(masked);
+    }
+
+    // two rounds of a 64 bit finalizer (MurmurHash3 fmix64) over the key-mixed PAN
+    private long fingerprint(long packed, int digits) {
+        long h = mix(packed ^ fingerprintKey) + digits;
+        return mix(h ^ Long.rotateLeft(fingerprintKey, 31));
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}